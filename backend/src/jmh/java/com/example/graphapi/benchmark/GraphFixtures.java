@@ -0,0 +1,53 @@
+package com.example.graphapi.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Graph pages for the benchmarks, built from a recorded drive children page
+ * (fixtures/drive-children-page.json). The recorded items are repeated with unique ids and names
+ * until the page holds the requested number of items, so every size has the same mix of folders,
+ * videos and documents.
+ */
+final class GraphFixtures {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private GraphFixtures() {
+  }
+
+  static byte[] childrenPage(int items) {
+    JsonNode recorded = read("fixtures/drive-children-page.json");
+    ObjectNode page = recorded.deepCopy();
+    ArrayNode value = page.putArray("value");
+    JsonNode template = recorded.get("value");
+    for (int i = 0; i < items; i++) {
+      ObjectNode item = template.get(i % template.size()).deepCopy();
+      item.put("id", item.get("id").asText() + String.format("%06d", i));
+      item.put("name", (i / template.size()) + " " + item.get("name").asText());
+      value.add(item);
+    }
+    try {
+      return MAPPER.writeValueAsBytes(page);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static JsonNode read(String resource) {
+    try (InputStream in = GraphFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+      if (in == null) {
+        throw new IllegalStateException("Missing fixture " + resource);
+      }
+      return MAPPER.readTree(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
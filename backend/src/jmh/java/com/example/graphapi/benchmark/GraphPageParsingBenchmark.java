@@ -0,0 +1,53 @@
+package com.example.graphapi.benchmark;
+
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.GraphPage;
+import com.example.graphapi.service.GraphApiService;
+import com.example.graphapi.service.GraphFileStreamDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a drive children page into GraphFiles: the tree path (body as String, readTree, then
+ * createGraphFileFromNode per item, as parsePage does) against the streaming decoder. Run with
+ * -prof gc to compare bytes allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphPageParsingBenchmark {
+
+  @Param({"10", "200", "1000", "5000"})
+  private int items;
+
+  private byte[] page;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GraphApiService graphApiService = new GraphApiService(new RestTemplate());
+  private final GraphFileStreamDecoder decoder = new GraphFileStreamDecoder();
+
+  @Setup(Level.Trial)
+  public void loadPage() {
+    page = GraphFixtures.childrenPage(items);
+  }
+
+  @Benchmark
+  public List<GraphFile> treeModel() throws IOException {
+    String body = new String(page, StandardCharsets.UTF_8);
+    return graphApiService.parseDriveItems(objectMapper.readTree(body));
+  }
+
+  @Benchmark
+  public GraphPage streaming() throws IOException {
+    return decoder.decodePage(new ByteArrayInputStream(page));
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.graphapi.benchmark;
+
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.service.GraphFileStreamDecoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the response map the file listing endpoints return ("files" and "count"), with and
+ * without spring.jackson.serialization.indent-output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+  @Param({"200", "1000", "5000"})
+  private int items;
+
+  @Param({"true", "false"})
+  private boolean indent;
+
+  private ObjectMapper objectMapper;
+  private Map<String, Object> response;
+
+  @Setup(Level.Trial)
+  public void buildResponse() throws IOException {
+    objectMapper = new ObjectMapper().configure(SerializationFeature.INDENT_OUTPUT, indent);
+    List<GraphFile> files = new GraphFileStreamDecoder()
+      .decodePage(new ByteArrayInputStream(GraphFixtures.childrenPage(items)))
+      .getItems();
+    response = new HashMap<>();
+    response.put("files", files);
+    response.put("count", files.size());
+  }
+
+  @Benchmark
+  public byte[] listingResponse() throws IOException {
+    return objectMapper.writeValueAsBytes(response);
+  }
+}
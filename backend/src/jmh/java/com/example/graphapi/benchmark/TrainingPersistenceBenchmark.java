@@ -0,0 +1,100 @@
+package com.example.graphapi.benchmark;
+
+import com.example.graphapi.GraphApiApplication;
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.repository.TrainingDetailsRepository;
+import com.example.graphapi.repository.TrainingUpsertRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a folder's worth of training details: Spring Data saveAll (one insert per row, the
+ * IDENTITY key keeps Hibernate from batching) against the JDBC batch upsert the ingestion uses.
+ * Runs the application context on an in-memory H2 database in PostgreSQL mode; the table is
+ * emptied before every iteration so both sides insert into the same amount of data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingPersistenceBenchmark {
+
+  @Param({"100", "1000"})
+  private int rows;
+
+  private ConfigurableApplicationContext context;
+  private TrainingDetailsRepository trainingDetailsRepository;
+  private TrainingUpsertRepository trainingUpsertRepository;
+  private JdbcTemplate jdbcTemplate;
+  private long sequence;
+
+  @Setup(Level.Trial)
+  public void startContext() {
+    context = new SpringApplicationBuilder(GraphApiApplication.class)
+      .web(WebApplicationType.NONE)
+      .logStartupInfo(false)
+      .run(
+        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driverClassName=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "--spring.jpa.properties.hibernate.default_schema=",
+        "--logging.level.root=WARN",
+        "--logging.level.com.example.graphapi=WARN");
+    trainingDetailsRepository = context.getBean(TrainingDetailsRepository.class);
+    trainingUpsertRepository = context.getBean(TrainingUpsertRepository.class);
+    jdbcTemplate = context.getBean(JdbcTemplate.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopContext() {
+    context.close();
+  }
+
+  @Setup(Level.Iteration)
+  public void emptyTable() {
+    jdbcTemplate.execute("truncate table training_details");
+  }
+
+  @Benchmark
+  public List<TrainingDetails> saveAll() {
+    return trainingDetailsRepository.saveAll(newRows());
+  }
+
+  @Benchmark
+  public List<TrainingDetails> batchUpsert() {
+    List<TrainingDetails> details = newRows();
+    trainingUpsertRepository.upsertDetails(details);
+    return details;
+  }
+
+  private List<TrainingDetails> newRows() {
+    List<TrainingDetails> details = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      long n = sequence++;
+      TrainingDetails detail = new TrainingDetails();
+      detail.setTrainingId("training-" + (n / 50));
+      detail.setTrainingDetailId("detail-" + n);
+      detail.setModuleName("Module " + n + ".mp4");
+      detail.setModuleTopic("Module " + n);
+      detail.setDuration(540.0 + n % 600);
+      detail.setModulePath("/Trainings/Cloud Native Java/Module " + n + ".mp4");
+      detail.setModuleFolder("Module " + (n % 7));
+      detail.setInstructorName("Adele Vance");
+      detail.setCategory("Engineering");
+      detail.setTrainingTopic("Cloud Native Java");
+      details.add(detail);
+    }
+    return details;
+  }
+}
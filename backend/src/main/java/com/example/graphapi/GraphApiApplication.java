@@ -3,8 +3,10 @@ package com.example.graphapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class GraphApiApplication {
     public static void main(String[] args) {
         SpringApplication.run(GraphApiApplication.class, args);
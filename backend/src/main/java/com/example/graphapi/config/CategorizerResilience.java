@@ -0,0 +1,371 @@
+package com.example.graphapi.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to the remote categorizer. A bulkhead caps the requests in flight against it,
+ * and callers that cannot get a permit within bulkhead-wait-ms take the fallback instead of
+ * queueing. Every call has its own deadline. A count-based circuit breaker opens when the
+ * failure rate over the last window-size calls reaches the threshold; while open, calls return
+ * the fallback without touching the service, and after open-ms a few trial calls decide whether
+ * it closes again. Client errors (4xx) do not count as failures. When hedging is enabled, a
+ * call still running after the p95 of recent successful requests is sent a second time and the
+ * first response wins; the hedge needs a free bulkhead permit, so a saturated service is not
+ * sent extra load.
+ */
+public class CategorizerResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(CategorizerResilience.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int LATENCY_SAMPLES = 256;
+
+    private final int maxConcurrent;
+    private final long bulkheadWaitMillis;
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final boolean hedgeEnabled;
+    private final int hedgeMinSamples;
+    private final long hedgeMinDelayMillis;
+
+    private final Semaphore bulkhead;
+    private final ExecutorService executor;
+
+    // Circuit breaker state, guarded by this
+    private State state = State.CLOSED;
+    private final boolean[] window;
+    private int windowCount;
+    private int windowIndex;
+    private int windowFailures;
+    private long openedAt;
+    private int trialsInFlight;
+    private int trialSuccesses;
+
+    // Latencies of successful requests, guarded by latencies
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    public CategorizerResilience(int maxConcurrent, long bulkheadWaitMillis, int windowSize, int minCalls,
+                                 double failureRateThreshold, long openMillis, int halfOpenCalls,
+                                 boolean hedgeEnabled, int hedgeMinSamples, long hedgeMinDelayMillis) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.windowSize = Math.max(1, windowSize);
+        this.minCalls = Math.max(1, Math.min(minCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeMinSamples = Math.max(1, hedgeMinSamples);
+        this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+        this.bulkhead = new Semaphore(this.maxConcurrent, true);
+        this.window = new boolean[this.windowSize];
+        AtomicInteger threads = new AtomicInteger();
+        // Bounded by the bulkhead: every running task holds a permit
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "categorizer-call-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs action under the bulkhead, breaker and deadline, and returns fallback's result when
+     * the categorizer is unavailable, too slow or failing.
+     */
+    public <T> T call(Supplier<T> action, Supplier<T> fallback, long timeoutMillis, boolean hedgeable) {
+        calls.increment();
+        try {
+            if (!bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS)) {
+                bulkheadRejected.increment();
+                return fallback(fallback);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the categorizer");
+        }
+        if (!allowRequest()) {
+            bulkhead.release();
+            shortCircuited.increment();
+            return fallback(fallback);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        CompletableFuture<T> primary = submit(action);
+        CompletableFuture<T> result = primary;
+        try {
+            long hedgeDelay = hedgeable ? hedgeDelayMillis() : 0;
+            if (hedgeDelay > 0 && hedgeDelay < timeoutMillis) {
+                try {
+                    return succeeded(primary.get(hedgeDelay, TimeUnit.MILLISECONDS));
+                } catch (TimeoutException e) {
+                    if (bulkhead.tryAcquire()) {
+                        hedges.increment();
+                        result = firstSuccessful(primary, submit(action));
+                    }
+                }
+            }
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return succeeded(result.get(remaining, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            onFailure();
+            log.debug("Categorizer call timed out after {} ms", timeoutMillis);
+            return fallback(fallback);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HttpClientErrorException) {
+                // The request was rejected, the service itself is healthy
+                onSuccess();
+            } else {
+                failures.increment();
+                onFailure();
+            }
+            log.debug("Categorizer call failed: {}", cause.getMessage());
+            return fallback(fallback);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            onAbandoned();
+            throw new RuntimeException("Interrupted while waiting for the categorizer");
+        }
+    }
+
+    // The permit is held until the request itself finishes, even after the caller gave up on it
+    private <T> CompletableFuture<T> submit(Supplier<T> action) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    T value = action.get();
+                    recordLatency(System.nanoTime() - start);
+                    future.complete(value);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        primary.whenComplete((value, error) -> settle(first, pending, value, error, false));
+        hedge.whenComplete((value, error) -> settle(first, pending, value, error, true));
+        return first;
+    }
+
+    private <T> void settle(CompletableFuture<T> first, AtomicInteger pending, T value, Throwable error, boolean hedge) {
+        if (error == null) {
+            if (first.complete(value) && hedge) {
+                hedgeWins.increment();
+            }
+        } else if (pending.decrementAndGet() == 0) {
+            first.completeExceptionally(error);
+        }
+    }
+
+    private <T> T succeeded(T value) {
+        successes.increment();
+        onSuccess();
+        return value;
+    }
+
+    private <T> T fallback(Supplier<T> fallback) {
+        fallbacks.increment();
+        return fallback.get();
+    }
+
+    private synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+            log.info("Categorizer circuit half-open, sending up to {} trial calls", halfOpenCalls);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight >= halfOpenCalls) {
+                return false;
+            }
+            trialsInFlight++;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight--;
+            if (++trialSuccesses >= halfOpenCalls) {
+                state = State.CLOSED;
+                resetWindow();
+                log.info("Categorizer circuit closed");
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            log.warn("Categorizer trial call failed");
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+
+    // A trial call whose caller went away proves nothing either way
+    private synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight--;
+        }
+    }
+
+    private void record(boolean failed) {
+        if (windowCount == windowSize) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void open() {
+        log.warn("Categorizer circuit opened, falling back for {} ms ({} failures in the last {} calls)",
+                openMillis, windowFailures, windowCount);
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        Arrays.fill(window, false);
+        windowCount = 0;
+        windowIndex = 0;
+        windowFailures = 0;
+    }
+
+    private void recordLatency(long nanos) {
+        synchronized (latencies) {
+            latencies[latencyIndex] = nanos;
+            latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+    }
+
+    private long p95Nanos() {
+        long[] sorted;
+        synchronized (latencies) {
+            if (latencyCount == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+    }
+
+    // No hedging until there are enough samples, or while the breaker is probing
+    private long hedgeDelayMillis() {
+        if (!hedgeEnabled || getState() != State.CLOSED) {
+            return 0;
+        }
+        synchronized (latencies) {
+            if (latencyCount < hedgeMinSamples) {
+                return 0;
+            }
+        }
+        return Math.max(hedgeMinDelayMillis, TimeUnit.NANOSECONDS.toMillis(p95Nanos()));
+    }
+
+    // State as a gauge (0 closed, 1 open, 2 half-open) plus the fallback and hedge counters
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("categorizer.circuit.state", this, resilience -> resilience.getState().ordinal())
+                .register(registry);
+        FunctionCounter.builder("categorizer.fallbacks", fallbacks, LongAdder::sum).register(registry);
+        FunctionCounter.builder("categorizer.timeouts", timeouts, LongAdder::sum).register(registry);
+        FunctionCounter.builder("categorizer.bulkhead.rejected", bulkheadRejected, LongAdder::sum).register(registry);
+        FunctionCounter.builder("categorizer.hedges", hedges, LongAdder::sum).register(registry);
+        Gauge.builder("categorizer.in-flight", bulkhead, permits -> maxConcurrent - permits.availablePermits())
+                .register(registry);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("state", getState().name());
+        metrics.put("maxConcurrent", maxConcurrent);
+        metrics.put("inFlight", maxConcurrent - bulkhead.availablePermits());
+        metrics.put("calls", calls.sum());
+        metrics.put("successes", successes.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("shortCircuited", shortCircuited.sum());
+        metrics.put("bulkheadRejected", bulkheadRejected.sum());
+        metrics.put("fallbacks", fallbacks.sum());
+        metrics.put("hedges", hedges.sum());
+        metrics.put("hedgeWins", hedgeWins.sum());
+        metrics.put("p95Millis", p95Nanos() / 1_000_000.0);
+        return metrics;
+    }
+}
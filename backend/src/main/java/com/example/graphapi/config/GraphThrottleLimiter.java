@@ -0,0 +1,346 @@
+package com.example.graphapi.config;
+
+import com.example.graphapi.util.JwtClaims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive (AIMD) concurrency limit in front of Graph, kept per tenant because Graph throttles
+ * per tenant and application. Each tenant starts at initial-limit concurrent requests; every
+ * successful response while the limit is in use raises it by 1/limit (about one per round of
+ * requests), and a 429 or 503 halves it, at most once per backoff window so a burst of
+ * throttled responses counts as one signal. Retry-After pauses every request of the tenant until
+ * it has passed. Idempotent GET and HEAD requests are retried on 429, 503, 504 and I/O errors
+ * with jittered exponential backoff; other methods are never retried. A permit is held until the
+ * response is closed, so streamed bodies count against the limit while they are being read.
+ * <p>
+ * The tenant comes from the token's unverified tid claim, so a tenant only gets its own limit
+ * (and gauges) once Graph has answered one of its requests with something other than 401; until
+ * then, and whenever max-tenants is reached, it shares the default limit. Tenants idle for longer
+ * than tenant-idle-ms are dropped together with their gauges.
+ */
+public class GraphThrottleLimiter implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphThrottleLimiter.class);
+
+    private static final String DEFAULT_TENANT = "default";
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long acquireTimeoutMillis;
+    private final int maxTenants;
+    private final long tenantIdleMillis;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TenantLimit> tenants = new ConcurrentHashMap<>();
+
+    public GraphThrottleLimiter(int initialLimit, int minLimit, int maxLimit, int maxRetries, long baseBackoffMillis,
+                                long maxBackoffMillis, long acquireTimeoutMillis, int maxTenants, long tenantIdleMillis,
+                                MeterRegistry meterRegistry) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.initialLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.maxTenants = Math.max(1, maxTenants);
+        this.tenantIdleMillis = tenantIdleMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String key = tenantOf(request);
+        TenantLimit tenant = tenants.get(key);
+        if (tenant == null) {
+            tenant = tenants.computeIfAbsent(DEFAULT_TENANT, this::newTenant);
+        }
+        boolean idempotent = request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD;
+        int attempt = 0;
+        while (true) {
+            tenant.acquire(acquireTimeoutMillis);
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                tenant.release();
+                if (!idempotent || attempt >= maxRetries) {
+                    throw e;
+                }
+                sleep(backoff(attempt++, 0));
+                tenant.retries.increment();
+                continue;
+            }
+
+            int status = response.getStatusCode().value();
+            if (status != 401 && !tenants.containsKey(key)) {
+                admit(key);
+            }
+            if (status != 429 && status != 503 && status != 504) {
+                tenant.onSuccess();
+                return new PermitReleasingResponse(response, tenant);
+            }
+            long retryAfter = retryAfterMillis(response.getHeaders());
+            if (status != 504) {
+                tenant.onThrottled(retryAfter > 0 ? retryAfter : backoff(attempt, 0));
+            }
+            if (!idempotent || attempt >= maxRetries) {
+                return new PermitReleasingResponse(response, tenant);
+            }
+            response.close();
+            tenant.release();
+            log.debug("Graph answered {} for {} {}, retry {} of {}", status, request.getMethod(), request.getURI().getPath(),
+                    attempt + 1, maxRetries);
+            sleep(backoff(attempt++, retryAfter));
+            tenant.retries.increment();
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        tenants.forEach((key, tenant) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("limit", tenant.currentLimit());
+            stats.put("inFlight", tenant.inFlight());
+            stats.put("throttled", tenant.throttled.sum());
+            stats.put("retries", tenant.retries.sum());
+            stats.put("pausedForMillis", tenant.pausedForMillis());
+            snapshot.put(key, stats);
+        });
+        return snapshot;
+    }
+
+    private synchronized void admit(String key) {
+        if (tenants.containsKey(key)) {
+            return;
+        }
+        evictIdleTenants();
+        if (tenants.size() < maxTenants) {
+            tenants.put(key, newTenant(key));
+        }
+    }
+
+    private void evictIdleTenants() {
+        long now = System.currentTimeMillis();
+        tenants.forEach((key, tenant) -> {
+            if (!key.equals(DEFAULT_TENANT) && tenant.idleFor(now) > tenantIdleMillis && tenants.remove(key, tenant)) {
+                if (meterRegistry != null) {
+                    tenant.gauges.forEach(meterRegistry::remove);
+                }
+                log.debug("Dropped Graph throttle state of idle tenant {}", key);
+            }
+        });
+    }
+
+    private TenantLimit newTenant(String key) {
+        TenantLimit tenant = new TenantLimit(initialLimit);
+        if (meterRegistry != null) {
+            tenant.gauges.add(Gauge.builder("graph.throttle.limit", tenant, TenantLimit::currentLimit)
+                    .description("Adaptive concurrency limit for Graph requests")
+                    .tag("tenant", key)
+                    .register(meterRegistry));
+            tenant.gauges.add(Gauge.builder("graph.throttle.in-flight", tenant, TenantLimit::inFlight)
+                    .description("Graph requests holding a permit")
+                    .tag("tenant", key)
+                    .register(meterRegistry));
+        }
+        return tenant;
+    }
+
+    // Full jitter: a random delay up to the exponential bound, never shorter than Retry-After
+    private long backoff(int attempt, long retryAfterMillis) {
+        long bound = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 16));
+        long jittered = ThreadLocalRandom.current().nextLong(bound + 1);
+        return Math.max(retryAfterMillis, jittered);
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off from Graph");
+        }
+    }
+
+    private static String tenantOf(HttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return DEFAULT_TENANT;
+        }
+        String tenant = JwtClaims.claim(JwtClaims.decode(authorization.substring(7)), "tid");
+        return tenant != null ? tenant : DEFAULT_TENANT;
+    }
+
+    // Retry-After is either delta-seconds or an HTTP date
+    static long retryAfterMillis(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, (long) (Double.parseDouble(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    private class TenantLimit {
+
+        private double limit;
+        private int inFlight;
+        private long pausedUntil;
+        private long noDecreaseUntil;
+        private long lastUsed = System.currentTimeMillis();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final List<Gauge> gauges = new ArrayList<>(2);
+
+        private TenantLimit(int initialLimit) {
+            this.limit = initialLimit;
+        }
+
+        private synchronized void acquire(long timeoutMillis) throws IOException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    if (now >= deadline) {
+                        throw new IOException("Timed out waiting for a Graph request permit");
+                    }
+                    if (now < pausedUntil) {
+                        wait(Math.min(pausedUntil, deadline) - now);
+                    } else if (inFlight >= (int) limit) {
+                        wait(deadline - now);
+                    } else {
+                        inFlight++;
+                        lastUsed = now;
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a Graph request permit");
+            }
+        }
+
+        private synchronized void release() {
+            inFlight--;
+            lastUsed = System.currentTimeMillis();
+            notifyAll();
+        }
+
+        private synchronized long idleFor(long now) {
+            return inFlight > 0 ? 0 : now - lastUsed;
+        }
+
+        // Only grow while the limit is actually the constraint, otherwise idle tenants creep to the maximum
+        private synchronized void onSuccess() {
+            if (inFlight >= (int) limit / 2) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+
+        private synchronized void onThrottled(long pauseMillis) {
+            throttled.increment();
+            long now = System.currentTimeMillis();
+            pausedUntil = Math.max(pausedUntil, now + pauseMillis);
+            if (now >= noDecreaseUntil) {
+                limit = Math.max(minLimit, limit / 2);
+                noDecreaseUntil = now + Math.max(pauseMillis, 1000);
+                log.info("Graph throttled, concurrency limit lowered to {} for {} ms", (int) limit, pauseMillis);
+            }
+        }
+
+        private synchronized int currentLimit() {
+            return (int) limit;
+        }
+
+        private synchronized int inFlight() {
+            return inFlight;
+        }
+
+        private synchronized long pausedForMillis() {
+            return Math.max(0, pausedUntil - System.currentTimeMillis());
+        }
+    }
+
+    private static class PermitReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final TenantLimit tenant;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PermitReleasingResponse(ClientHttpResponse delegate, TenantLimit tenant) {
+            this.delegate = delegate;
+            this.tenant = tenant;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    tenant.release();
+                }
+            }
+        }
+    }
+}
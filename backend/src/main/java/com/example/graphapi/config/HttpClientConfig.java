@@ -0,0 +1,221 @@
+
+package com.example.graphapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http.graph.connect-timeout-ms:5000}")
+    private long graphConnectTimeoutMs;
+
+    @Value("${http.graph.read-timeout-ms:30000}")
+    private long graphReadTimeoutMs;
+
+    @Value("${http.graph.threads:16}")
+    private int graphThreads;
+
+    @Value("${graph.throttle.initial-limit:8}")
+    private int throttleInitialLimit;
+
+    @Value("${graph.throttle.min-limit:1}")
+    private int throttleMinLimit;
+
+    @Value("${graph.throttle.max-limit:64}")
+    private int throttleMaxLimit;
+
+    @Value("${graph.throttle.max-retries:4}")
+    private int throttleMaxRetries;
+
+    @Value("${graph.throttle.base-backoff-ms:500}")
+    private long throttleBaseBackoffMs;
+
+    @Value("${graph.throttle.max-backoff-ms:30000}")
+    private long throttleMaxBackoffMs;
+
+    @Value("${graph.throttle.acquire-timeout-ms:120000}")
+    private long throttleAcquireTimeoutMs;
+
+    @Value("${graph.throttle.max-tenants:100}")
+    private int throttleMaxTenants;
+
+    @Value("${graph.throttle.tenant-idle-ms:3600000}")
+    private long throttleTenantIdleMs;
+
+    @Value("${http.probe.connect-timeout-ms:5000}")
+    private long probeConnectTimeoutMs;
+
+    @Value("${http.probe.read-timeout-ms:30000}")
+    private long probeReadTimeoutMs;
+
+    @Value("${http.categorizer.connect-timeout-ms:5000}")
+    private long categorizerConnectTimeoutMs;
+
+    @Value("${http.categorizer.read-timeout-ms:60000}")
+    private long categorizerReadTimeoutMs;
+
+    @Value("${http.categorizer.pool-acquire-timeout-ms:10000}")
+    private long categorizerPoolAcquireTimeoutMs;
+
+    @Value("${http.categorizer.max-connections:64}")
+    private int categorizerMaxConnections;
+
+    @Value("${http.categorizer.max-connections-per-host:32}")
+    private int categorizerMaxConnectionsPerHost;
+
+    @Value("${http.categorizer.keep-alive-ms:60000}")
+    private long categorizerKeepAliveMs;
+
+    @Value("${categorizer.resilience.max-concurrent:16}")
+    private int categorizerMaxConcurrent;
+
+    @Value("${categorizer.resilience.bulkhead-wait-ms:5000}")
+    private long categorizerBulkheadWaitMs;
+
+    @Value("${categorizer.resilience.window-size:20}")
+    private int categorizerWindowSize;
+
+    @Value("${categorizer.resilience.min-calls:10}")
+    private int categorizerMinCalls;
+
+    @Value("${categorizer.resilience.failure-rate-threshold:0.5}")
+    private double categorizerFailureRateThreshold;
+
+    @Value("${categorizer.resilience.open-ms:30000}")
+    private long categorizerOpenMs;
+
+    @Value("${categorizer.resilience.half-open-calls:3}")
+    private int categorizerHalfOpenCalls;
+
+    @Value("${categorizer.resilience.hedge.enabled:false}")
+    private boolean categorizerHedgeEnabled;
+
+    @Value("${categorizer.resilience.hedge.min-samples:50}")
+    private int categorizerHedgeMinSamples;
+
+    @Value("${categorizer.resilience.hedge.min-delay-ms:50}")
+    private long categorizerHedgeMinDelayMs;
+
+    @Bean
+    public HttpClientMetrics httpClientMetrics(MeterRegistry meterRegistry) {
+        return new HttpClientMetrics(meterRegistry);
+    }
+
+    @Bean
+    public GraphThrottleLimiter graphThrottleLimiter(MeterRegistry meterRegistry) {
+        return new GraphThrottleLimiter(throttleInitialLimit, throttleMinLimit, throttleMaxLimit, throttleMaxRetries,
+                throttleBaseBackoffMs, throttleMaxBackoffMs, throttleAcquireTimeoutMs, throttleMaxTenants,
+                throttleTenantIdleMs, meterRegistry);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService graphHttpExecutor(HttpClientMetrics httpClientMetrics) {
+        ExecutorService executor = Executors.newFixedThreadPool(graphThreads);
+        httpClientMetrics.registerExecutor("graph", executor);
+        return executor;
+    }
+
+    // Graph is served over HTTP/2, so one multiplexed connection per host replaces a per-request handshake
+    @Bean
+    public HttpClient graphHttpClient(@Qualifier("graphHttpExecutor") ExecutorService graphHttpExecutor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(graphConnectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(graphHttpExecutor)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate graphRestTemplate(@Qualifier("graphHttpClient") HttpClient graphHttpClient,
+                                          HttpClientMetrics httpClientMetrics,
+                                          GraphThrottleLimiter graphThrottleLimiter) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(graphHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(graphReadTimeoutMs));
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(httpClientMetrics.interceptor("graph"));
+        // Only the exchange counter comes after it, so each retry re-executes just the HTTP call itself
+        restTemplate.getInterceptors().add(graphThrottleLimiter);
+        restTemplate.getInterceptors().add(httpClientMetrics.exchangeInterceptor("graph"));
+        return restTemplate;
+    }
+
+    // Range reads of pre-authenticated download URLs: not Graph API calls, so no throttle limiter permits
+    @Bean
+    public RestTemplate probeRestTemplate(HttpClientMetrics httpClientMetrics) {
+        HttpClient probeHttpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(probeConnectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(probeHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(probeReadTimeoutMs));
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(httpClientMetrics.interceptor("probe"));
+        return restTemplate;
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager categorizerConnectionManager(HttpClientMetrics httpClientMetrics) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(categorizerMaxConnections)
+                .setMaxConnPerRoute(categorizerMaxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(categorizerConnectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(categorizerReadTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        httpClientMetrics.registerPool("categorizer", connectionManager);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient categorizerHttpClient(PoolingHttpClientConnectionManager categorizerConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(categorizerConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(categorizerPoolAcquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(categorizerReadTimeoutMs))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(categorizerKeepAliveMs))
+                .evictIdleConnections(TimeValue.ofMilliseconds(categorizerKeepAliveMs))
+                .build();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public CategorizerResilience categorizerResilience(MeterRegistry meterRegistry) {
+        CategorizerResilience resilience = new CategorizerResilience(categorizerMaxConcurrent, categorizerBulkheadWaitMs,
+                categorizerWindowSize, categorizerMinCalls, categorizerFailureRateThreshold, categorizerOpenMs,
+                categorizerHalfOpenCalls, categorizerHedgeEnabled, categorizerHedgeMinSamples, categorizerHedgeMinDelayMs);
+        resilience.bindTo(meterRegistry);
+        return resilience;
+    }
+
+    @Bean
+    public RestTemplate categorizerRestTemplate(CloseableHttpClient categorizerHttpClient,
+                                                HttpClientMetrics httpClientMetrics) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(categorizerHttpClient));
+        restTemplate.getInterceptors().add(httpClientMetrics.interceptor("categorizer"));
+        return restTemplate;
+    }
+}
@@ -0,0 +1,226 @@
+
+package com.example.graphapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-host request counters for the shared HTTP clients, plus connection pool
+ * statistics for clients backed by a pooling connection manager. The JDK HttpClient used for
+ * Graph does not expose its connections, so for it the exchanges on the wire and its executor
+ * are measured instead. Every request is also
+ * timed into the outbound.requests histogram, tagged with the client, method, status and
+ * endpoint; ids in Graph paths are replaced by {id} to keep the endpoint tag bounded.
+ * The time covers the request up to the response headers, including throttling waits and
+ * retries, but not the reading of a streamed body.
+ */
+public class HttpClientMetrics {
+
+    // Path segments followed by an id in Graph urls
+    private static final Set<String> ID_PARENTS = Set.of("drives", "items", "sites", "users", "groups", "lists");
+
+    private final Map<String, HostCounters> hosts = new ConcurrentHashMap<>();
+    private final Map<String, PoolingHttpClientConnectionManager> pools = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> exchanges = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public HttpClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ClientHttpRequestInterceptor interceptor(String client) {
+        return new CountingInterceptor(client);
+    }
+
+    public void registerPool(String client, PoolingHttpClientConnectionManager connectionManager) {
+        pools.put(client, connectionManager);
+        poolGauge("http.client.pool.leased", client, connectionManager, manager -> manager.getTotalStats().getLeased());
+        poolGauge("http.client.pool.available", client, connectionManager, manager -> manager.getTotalStats().getAvailable());
+        poolGauge("http.client.pool.pending", client, connectionManager, manager -> manager.getTotalStats().getPending());
+        poolGauge("http.client.pool.max", client, connectionManager, manager -> manager.getTotalStats().getMax());
+    }
+
+    // Innermost interceptor: counts HTTP exchanges awaiting response headers, without throttling waits
+    public ClientHttpRequestInterceptor exchangeInterceptor(String client) {
+        AtomicInteger inFlight = exchanges.computeIfAbsent(client, key -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("http.client.exchanges.in-flight", counter, AtomicInteger::get)
+                    .tag("client", client)
+                    .register(meterRegistry);
+            return counter;
+        });
+        return (request, body, execution) -> {
+            inFlight.incrementAndGet();
+            try {
+                return execution.execute(request, body);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    // Active threads and queued tasks of the executor a JDK HttpClient runs its exchanges on
+    public void registerExecutor(String client, ExecutorService executor) {
+        new ExecutorServiceMetrics(executor, client + "-http", Tags.of("client", client)).bindTo(meterRegistry);
+    }
+
+    private void poolGauge(String name, String client, PoolingHttpClientConnectionManager connectionManager,
+                           ToDoubleFunction<PoolingHttpClientConnectionManager> value) {
+        Gauge.builder(name, connectionManager, value)
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    static String endpoint(URI uri) {
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder endpoint = new StringBuilder();
+        boolean idNext = false;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.contains(":")) {
+                // Path-based addressing such as root:/folder/file.mp4:
+                endpoint.append("/{path}");
+                break;
+            }
+            endpoint.append('/').append(idNext ? "{id}" : segment);
+            idNext = !idNext && ID_PARENTS.contains(segment);
+        }
+        return endpoint.length() == 0 ? "/" : endpoint.toString();
+    }
+
+    public Map<String, PoolingHttpClientConnectionManager> getPools() {
+        return pools;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> hostStats = new LinkedHashMap<>();
+        hosts.forEach((key, counters) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("inFlight", counters.inFlight.get());
+            stats.put("maxInFlight", counters.maxInFlight.get());
+            stats.put("requests", counters.requests.sum());
+            stats.put("failures", counters.failures.sum());
+            stats.put("avgMillis", counters.requests.sum() == 0 ? 0.0
+                    : counters.nanos.sum() / 1_000_000.0 / counters.requests.sum());
+            hostStats.put(key, stats);
+        });
+
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        pools.forEach((client, manager) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("total", toMap(manager.getTotalStats()));
+            Map<String, Object> routes = new LinkedHashMap<>();
+            for (HttpRoute route : manager.getRoutes()) {
+                routes.put(route.getTargetHost().toURI(), toMap(manager.getStats(route)));
+            }
+            stats.put("routes", routes);
+            poolStats.put(client, stats);
+        });
+
+        Map<String, Object> exchangeStats = new LinkedHashMap<>();
+        exchanges.forEach((client, inFlight) -> exchangeStats.put(client, inFlight.get()));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("hosts", hostStats);
+        snapshot.put("pools", poolStats);
+        snapshot.put("exchangesInFlight", exchangeStats);
+        return snapshot;
+    }
+
+    private static Map<String, Object> toMap(PoolStats stats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("leased", stats.getLeased());
+        map.put("available", stats.getAvailable());
+        map.put("pending", stats.getPending());
+        map.put("max", stats.getMax());
+        return map;
+    }
+
+    private static class HostCounters {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    private class CountingInterceptor implements ClientHttpRequestInterceptor {
+
+        private final String client;
+
+        private CountingInterceptor(String client) {
+            this.client = client;
+        }
+
+        @Override
+        public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            HostCounters counters = hosts.computeIfAbsent(client + ":" + request.getURI().getHost(),
+                    this::newCounters);
+            int inFlight = counters.inFlight.incrementAndGet();
+            counters.maxInFlight.accumulateAndGet(inFlight, Math::max);
+            long start = System.nanoTime();
+            String status = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                status = String.valueOf(response.getStatusCode().value());
+                if (response.getStatusCode().isError()) {
+                    counters.failures.increment();
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                counters.failures.increment();
+                throw e;
+            } finally {
+                long nanos = System.nanoTime() - start;
+                counters.requests.increment();
+                counters.nanos.add(nanos);
+                counters.inFlight.decrementAndGet();
+                Timer.builder("outbound.requests")
+                        .tag("client", client)
+                        .tag("method", request.getMethod().name())
+                        .tag("endpoint", endpoint(request.getURI()))
+                        .tag("status", status)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private HostCounters newCounters(String key) {
+            HostCounters counters = new HostCounters();
+            Gauge.builder("outbound.requests.in-flight", counters, c -> c.inFlight.get())
+                    .tag("client", client)
+                    .tag("host", key.substring(client.length() + 1))
+                    .register(meterRegistry);
+            return counters;
+        }
+    }
+}
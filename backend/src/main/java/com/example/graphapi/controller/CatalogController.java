@@ -0,0 +1,189 @@
+package com.example.graphapi.controller;
+
+import com.example.graphapi.model.SearchHit;
+import com.example.graphapi.service.CatalogSearchIndex;
+import com.example.graphapi.service.CatalogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/catalog")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class CatalogController {
+
+  @Autowired
+  private CatalogService catalogService;
+
+  @Autowired
+  private CatalogSearchIndex catalogSearchIndex;
+
+  @Operation(
+    summary = "List Courses",
+    description = "Lists trainings, optionally filtered by category, topic or trainer. Pass nextCursor back as after for the next page"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Courses retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/courses")
+  public ResponseEntity<Map<String, Object>> listCourses(
+    @Parameter(description = "Training category") @RequestParam(required = false) String category,
+    @Parameter(description = "Training topic") @RequestParam(required = false) String topic,
+    @Parameter(description = "Trainer of at least one module") @RequestParam(required = false) String trainer,
+    @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String after,
+    @Parameter(description = "Page size") @RequestParam(required = false) Integer limit) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      response.putAll(catalogService.listCourses(category, topic, trainer, after, limit));
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to list courses: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Get Course",
+    description = "Returns a training with its module count, total duration and the first page of its modules"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Course retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "404", description = "Course not found",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/courses/{trainingId}")
+  public ResponseEntity<Map<String, Object>> getCourse(
+    @Parameter(description = "Training ID", required = true) @PathVariable String trainingId,
+    @Parameter(description = "Page size of the module list") @RequestParam(required = false) Integer limit) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      Optional<Map<String, Object>> course = catalogService.getCourse(trainingId, limit);
+      if (course.isEmpty()) {
+        response.put("error", "Course not found: " + trainingId);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+      }
+      response.putAll(course.get());
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to get course: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "List Course Modules",
+    description = "Pages through the modules of one training"
+  )
+  @GetMapping("/courses/{trainingId}/modules")
+  public ResponseEntity<Map<String, Object>> listCourseModules(
+    @Parameter(description = "Training ID", required = true) @PathVariable String trainingId,
+    @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String after,
+    @Parameter(description = "Page size") @RequestParam(required = false) Integer limit) {
+    return listModules(trainingId, null, null, null, after, limit);
+  }
+
+  @Operation(
+    summary = "List Modules",
+    description = "Lists modules across trainings, optionally filtered by training, category, topic or trainer"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Modules retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or limit",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/modules")
+  public ResponseEntity<Map<String, Object>> listModules(
+    @Parameter(description = "Training ID") @RequestParam(required = false) String trainingId,
+    @Parameter(description = "Module category") @RequestParam(required = false) String category,
+    @Parameter(description = "Training topic") @RequestParam(required = false) String topic,
+    @Parameter(description = "Trainer name") @RequestParam(required = false) String trainer,
+    @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String after,
+    @Parameter(description = "Page size") @RequestParam(required = false) Integer limit) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      response.putAll(catalogService.listModules(trainingId, category, topic, trainer, after, limit));
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to list modules: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Search Catalog",
+    description = "Ranked search over course names and topics and module names, topics and trainers. "
+      + "Every word is matched as a prefix, so the endpoint also serves typeahead with a small limit"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Search results retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Missing query or unknown type",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/search")
+  public ResponseEntity<Map<String, Object>> search(
+    @Parameter(description = "Search text", required = true) @RequestParam String q,
+    @Parameter(description = "course or module; both when omitted") @RequestParam(required = false) String type,
+    @Parameter(description = "Maximum number of results") @RequestParam(defaultValue = "20") int limit) {
+    Map<String, Object> response = new HashMap<>();
+
+    if (q.isBlank()) {
+      response.put("error", "q is required");
+      return ResponseEntity.badRequest().body(response);
+    }
+    if (type != null && !type.equals("course") && !type.equals("module")) {
+      response.put("error", "type must be course or module");
+      return ResponseEntity.badRequest().body(response);
+    }
+    long start = System.nanoTime();
+    List<SearchHit> hits = catalogSearchIndex.search(q, type, limit);
+    response.put("query", q);
+    response.put("count", hits.size());
+    response.put("results", hits);
+    response.put("tookMicros", (System.nanoTime() - start) / 1_000);
+    return ResponseEntity.ok(response);
+  }
+
+  @Operation(
+    summary = "Search Index Stats",
+    description = "Document and term counts of the in-memory catalog search index"
+  )
+  @GetMapping("/search/stats")
+  public ResponseEntity<Map<String, Object>> searchStats() {
+    return ResponseEntity.ok(catalogSearchIndex.getStats());
+  }
+}
@@ -0,0 +1,233 @@
+package com.example.graphapi.controller;
+
+import com.example.graphapi.model.CategorizeDocumentsRequest;
+import com.example.graphapi.model.CategorizeDriveItemsRequest;
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.service.BulkCategorizationService;
+import com.example.graphapi.service.GraphApiService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/categorization")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class CategorizationController {
+
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Autowired
+  private BulkCategorizationService bulkCategorizationService;
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Operation(
+    summary = "Categorize Documents",
+    description = "Categorizes drive items the client already listed, passed as a JSON string. Without an access "
+      + "token files are categorized by name in-process and the categorization cache is neither read nor written"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Documents categorized successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Missing or malformed documentsJson",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/categorize")
+  public ResponseEntity<Map<String, Object>> categorizeDocuments(
+    @Parameter(description = "Request containing the documents JSON and an optional access token", required = true)
+    @RequestBody CategorizeDocumentsRequest categorizeDocumentsRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      if (categorizeDocumentsRequest.getDocumentsJson() == null || categorizeDocumentsRequest.getDocumentsJson().isBlank()) {
+        response.put("error", "documentsJson is required");
+        return ResponseEntity.badRequest().body(response);
+      }
+      String accessToken = categorizeDocumentsRequest.getAccessToken();
+      if (accessToken != null && !graphApiService.validateToken(accessToken)) {
+        response.put("error", "Invalid access token");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+      }
+      long start = System.nanoTime();
+      List<GraphFile> files = bulkCategorizationService.parseDocuments(categorizeDocumentsRequest.getDocumentsJson());
+      response.putAll(bulkCategorizationService.summarize(bulkCategorizationService.categorize(
+        accessToken, categorizeDocumentsRequest.getDriveId(), files, item -> { }), true));
+      response.put("processingMillis", (System.nanoTime() - start) / 1_000_000);
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to categorize documents: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Categorize Drive Items",
+    description = "Categorizes the selected drive items, expanding folders, and returns the files grouped by category"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Drive items categorized successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "No items selected or selection too large",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/categorize-drive-items")
+  public ResponseEntity<Map<String, Object>> categorizeDriveItems(
+    @Parameter(description = "Request containing Azure AD access token, drive ID and the selected item IDs", required = true)
+    @RequestBody CategorizeDriveItemsRequest categorizeDriveItemsRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      ResponseEntity<Map<String, Object>> invalid = validate(categorizeDriveItemsRequest);
+      if (invalid != null) {
+        return invalid;
+      }
+      long start = System.nanoTime();
+      List<GraphFile> files = resolve(categorizeDriveItemsRequest);
+      response.putAll(bulkCategorizationService.summarize(bulkCategorizationService.categorize(
+        categorizeDriveItemsRequest.getAccessToken(), categorizeDriveItemsRequest.getDriveId(), files, item -> { }), true));
+      response.put("processingMillis", (System.nanoTime() - start) / 1_000_000);
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to categorize drive items: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Stream Drive Item Categorization",
+    description = "Same as categorize-drive-items, but writes one NDJSON line per file as soon as it is categorized: "
+      + "a started line with totalFiles, an item line per file and a final summary line with the category counts"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Categorization results are streamed",
+      content = @Content(mediaType = "application/x-ndjson")),
+    @ApiResponse(responseCode = "400", description = "No items selected or selection too large",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/categorize-drive-items/stream")
+  public ResponseEntity<StreamingResponseBody> streamDriveItemCategorization(
+    @Parameter(description = "Request containing Azure AD access token, drive ID and the selected item IDs", required = true)
+    @RequestBody CategorizeDriveItemsRequest categorizeDriveItemsRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      ResponseEntity<Map<String, Object>> invalid = validate(categorizeDriveItemsRequest);
+      if (invalid != null) {
+        return asJson(invalid);
+      }
+      // Resolved before streaming starts so listing errors still get a proper status code
+      List<GraphFile> files = resolve(categorizeDriveItemsRequest);
+      StreamingResponseBody body = out -> {
+        long start = System.nanoTime();
+        Map<String, Object> started = new LinkedHashMap<>();
+        started.put("type", "started");
+        started.put("totalFiles", files.size());
+        writeLine(out, started);
+
+        List<BulkCategorizationService.CategorizedItem> items = bulkCategorizationService.categorize(
+          categorizeDriveItemsRequest.getAccessToken(), categorizeDriveItemsRequest.getDriveId(), files, item -> {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("type", "item");
+            line.putAll(bulkCategorizationService.toMap(item));
+            writeLine(out, line);
+          });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.putAll(bulkCategorizationService.summarize(items, false));
+        summary.remove("errors");
+        summary.put("processingMillis", (System.nanoTime() - start) / 1_000_000);
+        writeLine(out, summary);
+      };
+      return ResponseEntity.ok().contentType(NDJSON).body(body);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return asJson(ResponseEntity.badRequest().body(response));
+    } catch (Exception e) {
+      response.put("error", "Failed to categorize drive items: " + e.getMessage());
+      return asJson(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response));
+    }
+  }
+
+  private ResponseEntity<Map<String, Object>> validate(CategorizeDriveItemsRequest request) {
+    Map<String, Object> response = new HashMap<>();
+    if (request.getItemId() == null && (request.getItemIds() == null || request.getItemIds().isEmpty())) {
+      response.put("error", "itemId or itemIds is required");
+      return ResponseEntity.badRequest().body(response);
+    }
+    if (!graphApiService.validateToken(request.getAccessToken())) {
+      response.put("error", "Invalid access token");
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+    }
+    return null;
+  }
+
+  private List<GraphFile> resolve(CategorizeDriveItemsRequest request) {
+    List<String> itemIds = new ArrayList<>();
+    if (request.getItemId() != null) {
+      itemIds.add(request.getItemId());
+    }
+    if (request.getItemIds() != null) {
+      itemIds.addAll(request.getItemIds());
+    }
+    return bulkCategorizationService.resolveDriveItems(request.getAccessToken(), request.getDriveId(), itemIds);
+  }
+
+  // Spring only streams a ResponseEntity declared as StreamingResponseBody, so error maps are written the same way
+  private ResponseEntity<StreamingResponseBody> asJson(ResponseEntity<Map<String, Object>> error) {
+    return ResponseEntity.status(error.getStatusCode())
+      .contentType(MediaType.APPLICATION_JSON)
+      .body(out -> out.write(objectMapper.writeValueAsBytes(error.getBody())));
+  }
+
+  // Flushed per line so the client sees each result as soon as it is ready
+  private void writeLine(OutputStream out, Map<String, Object> line) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(line));
+      out.write('\n');
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,14 +1,22 @@
 package com.example.graphapi.controller;
 
+import com.example.graphapi.config.GraphThrottleLimiter;
+import com.example.graphapi.config.HttpClientMetrics;
 import com.example.graphapi.entity.TrainingDetails;
 import com.example.graphapi.entity.TrainingMaster;
-import com.example.graphapi.entity.VideoFiles;
 import com.example.graphapi.model.AuthRequest;
+import com.example.graphapi.model.DeltaSyncResult;
+import com.example.graphapi.model.DownloadUrlsRequest;
 import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.IngestionStats;
 import com.example.graphapi.repository.TrainingDetailsRepository;
 import com.example.graphapi.repository.TrainingMasterRepository;
-import com.example.graphapi.repository.VideoFileRepository;
+import com.example.graphapi.service.CategorizerClient;
+import com.example.graphapi.service.DriveDeltaSyncService;
 import com.example.graphapi.service.GraphApiService;
+import com.example.graphapi.service.GraphListingCache;
+import com.example.graphapi.service.IngestionListener;
+import com.example.graphapi.service.LocalCategorizer;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,6 +29,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,8 +48,22 @@ public class GraphApiController {
   private TrainingDetailsRepository trainingDetailsRepository;
 
   @Autowired
-  private VideoFileRepository repository;
+  private HttpClientMetrics httpClientMetrics;
 
+  @Autowired
+  private DriveDeltaSyncService driveDeltaSyncService;
+
+  @Autowired
+  private CategorizerClient categorizerClient;
+
+  @Autowired
+  private LocalCategorizer localCategorizer;
+
+  @Autowired
+  private GraphListingCache graphListingCache;
+
+  @Autowired
+  private GraphThrottleLimiter graphThrottleLimiter;
 
   public GraphApiController(GraphApiService graphApiService) {
     this.graphApiService = graphApiService;
@@ -63,6 +86,62 @@ public class GraphApiController {
     return ResponseEntity.ok(response);
   }
 
+  @Operation(
+    summary = "HTTP Client Pools",
+    description = "Per-host request counters and connection pool statistics of the outbound HTTP clients"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Pool statistics retrieved successfully",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/http-pools")
+  public ResponseEntity<Map<String, Object>> httpPools() {
+    return ResponseEntity.ok(httpClientMetrics.snapshot());
+  }
+
+  @Operation(
+    summary = "Categorizer Latency",
+    description = "Per-request latency of the remote categorizer and per-batch latency of the local categorizer"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Categorizer metrics retrieved successfully",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/categorizer/metrics")
+  public ResponseEntity<Map<String, Object>> categorizerMetrics() {
+    Map<String, Object> response = new HashMap<>();
+    response.put("mode", localCategorizer.isEnabled() ? "local" : "remote");
+    response.put("remote", categorizerClient.getMetrics());
+    response.put("local", localCategorizer.getMetrics());
+    return ResponseEntity.ok(response);
+  }
+
+  @Operation(
+    summary = "Listing Cache Metrics",
+    description = "Hits (304 served from cache), misses, revalidations and changed listings of the Graph listing cache"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Listing cache metrics retrieved successfully",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/listing-cache/metrics")
+  public ResponseEntity<Map<String, Object>> listingCacheMetrics() {
+    return ResponseEntity.ok(graphListingCache.getMetrics());
+  }
+
+  @Operation(
+    summary = "Graph Throttling",
+    description = "Adaptive concurrency limit, in-flight requests, throttled responses and retries per tenant"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Throttling state retrieved successfully",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/throttle")
+  public ResponseEntity<Map<String, Object>> throttle() {
+    return ResponseEntity.ok(graphThrottleLimiter.snapshot());
+  }
+
   @Operation(
     summary = "Get User Info",
     description = "Retrieves user information from Microsoft Graph using a test token"
@@ -229,6 +308,7 @@ public class GraphApiController {
     @RequestBody AuthRequest authRequest) {
     Map<String, Object> response = new HashMap<>();
     List<GraphFile> files = new ArrayList<>(); // Initialize files list
+    IngestionStats ingestionStats = null;
 
     try {
       // First validate the token
@@ -238,11 +318,15 @@ public class GraphApiController {
       }
 
       if (driveId != null && itemId != null) {
-        // Process training data using service layer
-        graphApiService.processTrainingData(authRequest.getAccessToken(), driveId, itemId);
-
-        // Get all files for the response
-        List<GraphFile> rootItems = graphApiService.getDriveItemChildren(authRequest.getAccessToken(), driveId, itemId);
+        // Process training data using service layer, keeping the root items it lists for the response
+        List<GraphFile> rootItems = Collections.synchronizedList(new ArrayList<>());
+        ingestionStats = graphApiService.processTrainingData(authRequest.getAccessToken(), driveId, itemId,
+          new IngestionStats(), new IngestionListener() {
+            @Override
+            public void onRootPage(List<GraphFile> items) {
+              rootItems.addAll(items);
+            }
+          });
         files.addAll(rootItems);
       }
 
@@ -252,10 +336,102 @@ public class GraphApiController {
       response.put("count", files.size());
       response.put("driveId", driveId);
       response.put("itemId", itemId);
+      response.put("ingestion", ingestionStats);
       return ResponseEntity.ok(response);
     } catch (Exception e) {
       response.put("error", "Failed to retrieve drive item children: " + e.getMessage());
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
   }
+
+  @Operation(
+    summary = "Sync Drive Item",
+    description = "Incrementally syncs training data below a drive item using Graph delta queries. "
+      + "The first call crawls the folder and stores a delta token, later calls only apply changed items"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Drive item synced successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/drives/{driveId}/items/{itemId}/sync")
+  public ResponseEntity<Map<String, Object>> syncDriveItem(
+    @Parameter(description = "Drive ID", required = true)
+    @PathVariable String driveId,
+    @Parameter(description = "Item ID", required = true)
+    @PathVariable String itemId,
+    @Parameter(description = "Request containing Azure AD access token", required = true)
+    @RequestBody AuthRequest authRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      // First validate the token
+      if (!graphApiService.validateToken(authRequest.getAccessToken())) {
+        response.put("error", "Invalid access token");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+      }
+
+      DeltaSyncResult result = driveDeltaSyncService.sync(authRequest.getAccessToken(), driveId, itemId);
+      response.put("message", "Training data synced successfully");
+      response.put("sync", result);
+      response.put("driveId", driveId);
+      response.put("itemId", itemId);
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to sync drive item: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Get Download URLs",
+    description = "Resolves the download URLs of several drive items, combining up to 20 lookups per Graph $batch call"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Download URLs retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "No item IDs given",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/drives/{driveId}/download-urls")
+  public ResponseEntity<Map<String, Object>> getDownloadUrls(
+    @Parameter(description = "Drive ID", required = true)
+    @PathVariable String driveId,
+    @Parameter(description = "Request containing Azure AD access token and item IDs", required = true)
+    @RequestBody DownloadUrlsRequest downloadUrlsRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      if (downloadUrlsRequest.getItemIds() == null || downloadUrlsRequest.getItemIds().isEmpty()) {
+        response.put("error", "itemIds is required");
+        return ResponseEntity.badRequest().body(response);
+      }
+      if (!graphApiService.validateToken(downloadUrlsRequest.getAccessToken())) {
+        response.put("error", "Invalid access token");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+      }
+
+      Map<String, String> downloadUrls = graphApiService.getVideoDownloadUrls(
+        downloadUrlsRequest.getAccessToken(), driveId, downloadUrlsRequest.getItemIds());
+      List<String> missing = downloadUrlsRequest.getItemIds().stream()
+        .filter(id -> !downloadUrls.containsKey(id))
+        .distinct()
+        .toList();
+      response.put("downloadUrls", downloadUrls);
+      response.put("count", downloadUrls.size());
+      response.put("missing", missing);
+      response.put("driveId", driveId);
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to retrieve download URLs: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
 }
@@ -0,0 +1,134 @@
+package com.example.graphapi.controller;
+
+import com.example.graphapi.model.AuthRequest;
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.IngestionJob;
+import com.example.graphapi.service.GraphApiService;
+import com.example.graphapi.service.IngestionJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/graph")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class IngestionJobController {
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Autowired
+  private IngestionJobService ingestionJobService;
+
+  @Operation(
+    summary = "Submit Ingestion Job",
+    description = "Starts processing the training data below a drive item in the background and returns a job ID immediately"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "202", description = "Ingestion job accepted",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "503", description = "Too many ingestion jobs queued",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/drives/{driveId}/items/{itemId}/jobs")
+  public ResponseEntity<Map<String, Object>> submitJob(
+    @Parameter(description = "Drive ID", required = true)
+    @PathVariable String driveId,
+    @Parameter(description = "Item ID", required = true)
+    @PathVariable String itemId,
+    @Parameter(description = "Request containing Azure AD access token", required = true)
+    @RequestBody AuthRequest authRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      if (!graphApiService.validateToken(authRequest.getAccessToken())) {
+        response.put("error", "Invalid access token");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+      }
+
+      IngestionJob job = ingestionJobService.submit(authRequest.getAccessToken(), driveId, itemId);
+      response.put("jobId", job.getId());
+      response.put("state", job.getState());
+      response.put("statusUrl", "/api/graph/jobs/" + job.getId());
+      response.put("eventsUrl", "/api/graph/jobs/" + job.getId() + "/events");
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    } catch (RejectedExecutionException e) {
+      response.put("error", "Too many ingestion jobs queued, retry later");
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to submit ingestion job: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Get Ingestion Job",
+    description = "Returns progress of an ingestion job; once finished it also contains the root items listed during the crawl"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Job status retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "404", description = "Unknown or expired job",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/jobs/{jobId}")
+  public ResponseEntity<Map<String, Object>> getJob(
+    @Parameter(description = "Job ID", required = true)
+    @PathVariable String jobId) {
+    Map<String, Object> response = new HashMap<>();
+    Optional<IngestionJob> found = ingestionJobService.getJob(jobId);
+    if (found.isEmpty()) {
+      response.put("error", "Ingestion job not found");
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    IngestionJob job = found.get();
+    response.putAll(job.getProgress());
+    response.put("driveId", job.getDriveId());
+    response.put("itemId", job.getItemId());
+    response.put("submittedAt", job.getSubmittedAt().toString());
+    response.put("errorDetails", job.getErrors());
+    if (job.isFinished()) {
+      List<GraphFile> files = job.getRootItems();
+      response.put("files", files);
+      response.put("count", files.size());
+      response.put("ingestion", job.getStats());
+      response.put("failure", job.getFailure());
+    }
+    return ResponseEntity.ok(response);
+  }
+
+  @Operation(
+    summary = "Stream Ingestion Job Progress",
+    description = "Server-Sent Events stream with periodic \"progress\" events and a final \"completed\" or \"failed\" event"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Event stream opened",
+      content = @Content(mediaType = "text/event-stream")),
+    @ApiResponse(responseCode = "404", description = "Unknown or expired job")
+  })
+  @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> streamJob(
+    @Parameter(description = "Job ID", required = true)
+    @PathVariable String jobId) {
+    return ingestionJobService.getJob(jobId)
+      .map(job -> ResponseEntity.ok(ingestionJobService.subscribe(job)))
+      .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+}
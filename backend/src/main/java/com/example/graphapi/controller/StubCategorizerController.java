@@ -0,0 +1,79 @@
+package com.example.graphapi.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline stand-in for the target-url classifier, enabled with the stub-categorizer profile.
+ * Answers both the single-file and the batch protocol with deterministic results derived from
+ * the file name, after a configurable delay, so ingestion can be load-tested without the real
+ * service. A share of requests (error-rate) fails with 503 to exercise the resilience layer.
+ */
+@RestController
+@RequestMapping("/stub/categorizer")
+@Profile("stub-categorizer")
+public class StubCategorizerController {
+
+  private static final String[] CATEGORIES = {"Technical", "Compliance", "Leadership", "Onboarding"};
+  private static final String[] TOPICS = {"Java", "Cloud", "Security", "Data", "Communication"};
+
+  @Value("${stub-categorizer.latency-ms:50}")
+  private long latencyMs;
+
+  @Value("${stub-categorizer.per-item-latency-ms:2}")
+  private long perItemLatencyMs;
+
+  @Value("${stub-categorizer.error-rate:0}")
+  private double errorRate;
+
+  @PostMapping("/processFile")
+  public ResponseEntity<Map<String, Object>> processFile(@RequestBody Map<String, String> request)
+    throws InterruptedException {
+    Thread.sleep(latencyMs + perItemLatencyMs);
+    if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    return ResponseEntity.ok(categorize(request));
+  }
+
+  @PostMapping("/processFile/batch")
+  public ResponseEntity<List<Map<String, Object>>> processBatch(@RequestBody Map<String, List<Map<String, String>>> request)
+    throws InterruptedException {
+    List<Map<String, String>> items = request.getOrDefault("items", List.of());
+    Thread.sleep(latencyMs + perItemLatencyMs * items.size());
+    if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    List<Map<String, Object>> results = new ArrayList<>(items.size());
+    for (Map<String, String> item : items) {
+      results.add(categorize(item));
+    }
+    return ResponseEntity.ok(results);
+  }
+
+  private Map<String, Object> categorize(Map<String, String> request) {
+    String fileName = request.getOrDefault("filename", "");
+    // floorMod, not abs: Math.abs(Integer.MIN_VALUE) is still negative
+    int hash = fileName.hashCode();
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("itemId", request.get("itemId"));
+    result.put("category", CATEGORIES[Math.floorMod(hash, CATEGORIES.length)]);
+    result.put("trainingTopic", TOPICS[Math.floorMod(hash, TOPICS.length)]);
+    result.put("moduleTopic", TOPICS[Math.floorMod(hash / 7, TOPICS.length)]);
+    result.put("instructorName", "Stub Trainer " + Math.floorMod(hash, 10));
+    result.put("duration", (double) (60 + Math.floorMod(hash, 3540)));
+    return result;
+  }
+}
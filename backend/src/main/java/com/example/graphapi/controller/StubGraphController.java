@@ -0,0 +1,397 @@
+package com.example.graphapi.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline stand-in for Microsoft Graph, enabled with the stub-graph profile. Serves a synthetic
+ * drive of stub-graph.items files: training folders below the root (ids T0, T1, ...), each with
+ * a few subfolders (T0S0, ...) and its files spread over the training folder and the subfolders
+ * (T0F0, ...). Supports children listings with $top/$skiptoken paging, item lookups, delta
+ * queries and JSON $batch. Every delta query with a token simulates delta-changes edited files
+ * since the previous one; edited files get new eTags and cTags in later listings too. Latency,
+ * throttling (429 with Retry-After) and server errors are configurable.
+ */
+@RestController
+@RequestMapping("/stub/graph")
+@Profile("stub-graph")
+public class StubGraphController {
+
+  private static final Pattern ITEM_PATH = Pattern.compile("/drives/([^/]+)/items/([^/?]+)(/children|/delta)?");
+  private static final Pattern ITEM_ID = Pattern.compile("T(\\d+)(?:S(\\d+)|F(\\d+))?");
+  private static final Instant CREATED = Instant.parse("2024-01-15T09:00:00Z");
+
+  @Value("${graph.base-url}")
+  private String baseUrl;
+
+  @Value("${stub-graph.items:1000}")
+  private int items;
+
+  @Value("${stub-graph.files-per-training:50}")
+  private int filesPerTraining;
+
+  @Value("${stub-graph.subfolders-per-training:2}")
+  private int subfolders;
+
+  @Value("${stub-graph.delta-changes:20}")
+  private int deltaChanges;
+
+  @Value("${stub-graph.latency-ms:20}")
+  private long latencyMs;
+
+  @Value("${stub-graph.throttle-rate:0}")
+  private double throttleRate;
+
+  @Value("${stub-graph.retry-after-seconds:1}")
+  private int retryAfterSeconds;
+
+  @Value("${stub-graph.error-rate:0}")
+  private double errorRate;
+
+  private final AtomicLong version = new AtomicLong();
+
+  @GetMapping("/me")
+  public ResponseEntity<Map<String, Object>> me() throws InterruptedException {
+    Map<String, Object> user = new LinkedHashMap<>();
+    user.put("id", "5f1c2a3b-0000-4000-8000-000000000001");
+    user.put("displayName", "Load Test");
+    user.put("userPrincipalName", "loadtest@contoso.onmicrosoft.com");
+    // Never fails, token validation is not what the stub exercises
+    Thread.sleep(latencyMs);
+    return ResponseEntity.ok(user);
+  }
+
+  @GetMapping("/me/drive/root/children")
+  public ResponseEntity<Map<String, Object>> rootChildren(@RequestParam MultiValueMap<String, String> query)
+    throws InterruptedException {
+    return respond(200, childrenPage("me", "root", query, "/me/drive/root/children"));
+  }
+
+  @GetMapping("/drives/{driveId}/items/{itemId}")
+  public ResponseEntity<Map<String, Object>> item(@PathVariable String driveId, @PathVariable String itemId)
+    throws InterruptedException {
+    Map<String, Object> item = findItem(driveId, itemId);
+    return item != null ? respond(200, item) : respond(404, notFound(itemId));
+  }
+
+  @GetMapping("/drives/{driveId}/items/{itemId}/children")
+  public ResponseEntity<Map<String, Object>> children(@PathVariable String driveId, @PathVariable String itemId,
+                                                      @RequestParam MultiValueMap<String, String> query)
+    throws InterruptedException {
+    Map<String, Object> page = childrenPage(driveId, itemId, query,
+      String.format("/drives/%s/items/%s/children", driveId, itemId));
+    return page != null ? respond(200, page) : respond(404, notFound(itemId));
+  }
+
+  @GetMapping("/drives/{driveId}/items/{itemId}/delta")
+  public ResponseEntity<Map<String, Object>> delta(@PathVariable String driveId, @PathVariable String itemId,
+                                                   @RequestParam MultiValueMap<String, String> query)
+    throws InterruptedException {
+    return respond(200, deltaPage(driveId, itemId, query));
+  }
+
+  @PostMapping("/$batch")
+  public ResponseEntity<Map<String, Object>> batch(@RequestBody Map<String, List<Map<String, String>>> request)
+    throws InterruptedException {
+    List<Map<String, Object>> responses = new ArrayList<>();
+    for (Map<String, String> subRequest : request.getOrDefault("requests", List.of())) {
+      Map<String, Object> response = new LinkedHashMap<>();
+      response.put("id", subRequest.get("id"));
+      int status = injectedStatus();
+      Map<String, Object> body = status == 200 ? dispatch(subRequest.get("url")) : error(status);
+      if (body == null) {
+        status = 404;
+        body = notFound(subRequest.get("url"));
+      }
+      response.put("status", status);
+      if (status == 429) {
+        response.put("headers", Map.of("Retry-After", String.valueOf(retryAfterSeconds)));
+      }
+      response.put("body", body);
+      responses.add(response);
+    }
+    return respond(200, Map.of("responses", responses));
+  }
+
+  // Sub-requests of a $batch, relative to the Graph version root
+  private Map<String, Object> dispatch(String url) {
+    UriComponents uri = UriComponentsBuilder.fromUriString(url).build();
+    Matcher matcher = ITEM_PATH.matcher(uri.getPath());
+    if (!matcher.matches()) {
+      return null;
+    }
+    String driveId = matcher.group(1);
+    String itemId = matcher.group(2);
+    if ("/children".equals(matcher.group(3))) {
+      return childrenPage(driveId, itemId, uri.getQueryParams(), uri.getPath());
+    }
+    if ("/delta".equals(matcher.group(3))) {
+      return deltaPage(driveId, itemId, uri.getQueryParams());
+    }
+    return findItem(driveId, itemId);
+  }
+
+  private Map<String, Object> childrenPage(String driveId, String itemId, MultiValueMap<String, String> query,
+                                           String path) {
+    int top = intParam(query, "$top", 200);
+    int skip = intParam(query, "$skiptoken", 0);
+    List<Map<String, Object>> value = new ArrayList<>();
+    int count;
+    if ("root".equals(itemId)) {
+      count = trainings();
+      for (int t = skip; t < Math.min(count, skip + top); t++) {
+        value.add(training(driveId, t));
+      }
+    } else {
+      Matcher matcher = ITEM_ID.matcher(itemId);
+      if (!matcher.matches() || matcher.group(3) != null || Integer.parseInt(matcher.group(1)) >= trainings()) {
+        return null;
+      }
+      int t = Integer.parseInt(matcher.group(1));
+      // Slot 0 holds the files directly in the training folder, slot s + 1 those of subfolder s
+      int slot = matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2)) + 1;
+      int folders = slot == 0 ? subfolders : 0;
+      count = folders + filesInSlot(t, slot);
+      for (int i = skip; i < Math.min(count, skip + top); i++) {
+        value.add(i < folders ? subfolder(driveId, t, i) : file(driveId, t, (i - folders) * (subfolders + 1) + slot));
+      }
+    }
+    Map<String, Object> page = new LinkedHashMap<>();
+    page.put("@odata.context", baseUrl + "/$metadata#Collection(driveItem)");
+    if (skip + top < count) {
+      page.put("@odata.nextLink", link(path, null, -1, top, skip + top));
+    }
+    page.put("value", value);
+    return page;
+  }
+
+  // Without a token the whole drive is enumerated; token=latest returns no items, only the current position
+  private Map<String, Object> deltaPage(String driveId, String itemId, MultiValueMap<String, String> query) {
+    String token = query.getFirst("token");
+    int top = intParam(query, "$top", 200);
+    int skip = intParam(query, "$skiptoken", 0);
+    String path = String.format("/drives/%s/items/%s/delta", driveId, itemId);
+    List<Map<String, Object>> value = new ArrayList<>();
+    int count;
+    long to;
+    if (token == null) {
+      to = version.get();
+      count = 1 + trainings() * (1 + subfolders) + items;
+      for (int position = skip; position < Math.min(count, skip + top); position++) {
+        value.add(enumerated(driveId, position));
+      }
+    } else if ("latest".equals(token)) {
+      to = version.get();
+      count = 0;
+    } else {
+      long from = Long.parseLong(token.substring(1));
+      // Later pages of the same round carry its target version, the first page simulates the edits
+      to = query.containsKey("to") ? Long.parseLong(query.getFirst("to")) : version.incrementAndGet();
+      long first = from * deltaChanges;
+      count = (int) Math.min(items, (to - from) * deltaChanges);
+      for (int i = skip; i < Math.min(count, skip + top); i++) {
+        int g = (int) ((first + i) % items);
+        value.add(file(driveId, g / filesPerTraining, g % filesPerTraining));
+      }
+    }
+    Map<String, Object> page = new LinkedHashMap<>();
+    page.put("@odata.context", baseUrl + "/$metadata#Collection(driveItem)");
+    if (skip + top < count) {
+      boolean changes = token != null && !"latest".equals(token);
+      page.put("@odata.nextLink", link(path, token, changes ? to : -1, top, skip + top));
+    } else {
+      page.put("@odata.deltaLink", link(path, "v" + to, -1, top, 0));
+    }
+    page.put("value", value);
+    return page;
+  }
+
+  private String link(String path, String token, long to, int top, int skip) {
+    UriComponentsBuilder link = UriComponentsBuilder.fromUriString(baseUrl + path);
+    if (token != null) {
+      link.queryParam("token", token);
+    }
+    if (to >= 0) {
+      link.queryParam("to", to);
+    }
+    link.queryParam("$top", top);
+    if (skip > 0) {
+      link.queryParam("$skiptoken", skip);
+    }
+    return link.build().toUriString();
+  }
+
+  // Delta enumeration order: the root, then per training its folder, its subfolders and its files
+  private Map<String, Object> enumerated(String driveId, int position) {
+    if (position == 0) {
+      return root(driveId);
+    }
+    int block = 1 + subfolders + filesPerTraining;
+    int t = (position - 1) / block;
+    int offset = (position - 1) % block;
+    if (offset == 0) {
+      return training(driveId, t);
+    }
+    return offset <= subfolders ? subfolder(driveId, t, offset - 1) : file(driveId, t, offset - 1 - subfolders);
+  }
+
+  private Map<String, Object> findItem(String driveId, String itemId) {
+    if ("root".equals(itemId)) {
+      return root(driveId);
+    }
+    Matcher matcher = ITEM_ID.matcher(itemId);
+    if (!matcher.matches() || Integer.parseInt(matcher.group(1)) >= trainings()) {
+      return null;
+    }
+    int t = Integer.parseInt(matcher.group(1));
+    if (matcher.group(2) != null) {
+      int s = Integer.parseInt(matcher.group(2));
+      return s < subfolders ? subfolder(driveId, t, s) : null;
+    }
+    if (matcher.group(3) != null) {
+      int k = Integer.parseInt(matcher.group(3));
+      return k < filesIn(t) ? file(driveId, t, k) : null;
+    }
+    return training(driveId, t);
+  }
+
+  private Map<String, Object> root(String driveId) {
+    Map<String, Object> root = driveItem("root", "Trainings", "/Trainings", 1);
+    root.put("root", Map.of());
+    root.put("folder", Map.of("childCount", trainings()));
+    return root;
+  }
+
+  private Map<String, Object> training(String driveId, int t) {
+    Map<String, Object> item = driveItem("T" + t, trainingName(t), "/Trainings/" + trainingName(t), 1);
+    item.put("parentReference", parent(driveId, "root", "Trainings", "/Trainings"));
+    item.put("folder", Map.of("childCount", subfolders + filesInSlot(t, 0)));
+    return item;
+  }
+
+  private Map<String, Object> subfolder(String driveId, int t, int s) {
+    String name = "Module " + (s + 1);
+    Map<String, Object> item = driveItem("T" + t + "S" + s, name, "/Trainings/" + trainingName(t) + "/" + name, 1);
+    item.put("parentReference", parent(driveId, "T" + t, trainingName(t), "/Trainings/" + trainingName(t)));
+    item.put("folder", Map.of("childCount", filesInSlot(t, s + 1)));
+    return item;
+  }
+
+  private Map<String, Object> file(String driveId, int t, int k) {
+    int slot = k % (subfolders + 1);
+    String parentId = slot == 0 ? "T" + t : "T" + t + "S" + (slot - 1);
+    String parentName = slot == 0 ? trainingName(t) : "Module " + slot;
+    String parentPath = "/Trainings/" + trainingName(t) + (slot == 0 ? "" : "/" + parentName);
+    boolean video = k % 5 != 4;
+    String name = String.format("%02d - Lesson %d.%s", k + 1, k + 1, video ? "mp4" : "pdf");
+    Map<String, Object> item = driveItem("T" + t + "F" + k, name, parentPath + "/" + name,
+      1 + timesChanged(t * filesPerTraining + k));
+    item.put("size", video ? 50_000_000L + k * 1_000_003L % 400_000_000L : 200_000L + k * 7_919L);
+    item.put("parentReference", parent(driveId, parentId, parentName, parentPath));
+    item.put("file", Map.of("mimeType", video ? "video/mp4" : "application/pdf"));
+    return item;
+  }
+
+  private Map<String, Object> driveItem(String id, String name, String path, long revision) {
+    Map<String, Object> item = new LinkedHashMap<>();
+    item.put("id", id);
+    item.put("name", name);
+    item.put("webUrl", "https://contoso.sharepoint.com/sites/Training/Shared%20Documents" + path.replace(" ", "%20"));
+    item.put("size", 0L);
+    item.put("createdDateTime", CREATED.toString());
+    item.put("lastModifiedDateTime", CREATED.plusSeconds(3600 * revision).toString());
+    item.put("eTag", "\"{" + id + "}," + revision + "\"");
+    item.put("cTag", "\"c:{" + id + "}," + revision + "\"");
+    return item;
+  }
+
+  private static Map<String, Object> parent(String driveId, String id, String name, String path) {
+    Map<String, Object> parent = new LinkedHashMap<>();
+    parent.put("driveType", "documentLibrary");
+    parent.put("driveId", driveId);
+    parent.put("id", id);
+    parent.put("name", name);
+    parent.put("path", "/drives/" + driveId + "/root:" + path);
+    return parent;
+  }
+
+  private static String trainingName(int t) {
+    return "Training " + (t + 1);
+  }
+
+  private int trainings() {
+    return (items + filesPerTraining - 1) / filesPerTraining;
+  }
+
+  private int filesIn(int t) {
+    return Math.max(0, Math.min(filesPerTraining, items - t * filesPerTraining));
+  }
+
+  private int filesInSlot(int t, int slot) {
+    int files = filesIn(t);
+    return files > slot ? (files - 1 - slot) / (subfolders + 1) + 1 : 0;
+  }
+
+  // Delta rounds edit files round-robin, deltaChanges per round
+  private long timesChanged(int file) {
+    long edits = version.get() * deltaChanges;
+    return edits > file ? (edits - 1 - file) / items + 1 : 0;
+  }
+
+  private static int intParam(MultiValueMap<String, String> query, String name, int defaultValue) {
+    String value = query.getFirst(name);
+    return value != null ? Integer.parseInt(value) : defaultValue;
+  }
+
+  private int injectedStatus() {
+    double roll = ThreadLocalRandom.current().nextDouble();
+    if (roll < throttleRate) {
+      return 429;
+    }
+    return roll < throttleRate + errorRate ? 500 : 200;
+  }
+
+  private static Map<String, Object> error(int status) {
+    String code = status == 429 ? "TooManyRequests" : "generalException";
+    return Map.of("error", Map.of("code", code, "message", "Injected by the Graph stub"));
+  }
+
+  private static Map<String, Object> notFound(String itemId) {
+    return Map.of("error", Map.of("code", "itemNotFound", "message", "Item not found: " + itemId));
+  }
+
+  private ResponseEntity<Map<String, Object>> respond(int status, Map<String, Object> body)
+    throws InterruptedException {
+    Thread.sleep(latencyMs);
+    int injected = status == 200 ? injectedStatus() : status;
+    if (injected == 429) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body(error(injected));
+    }
+    return ResponseEntity.status(injected).body(injected == status ? body : error(injected));
+  }
+}
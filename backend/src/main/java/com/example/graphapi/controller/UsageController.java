@@ -0,0 +1,123 @@
+package com.example.graphapi.controller;
+
+import com.example.graphapi.model.UsageEventRequest;
+import com.example.graphapi.service.UsageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/usage")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class UsageController {
+
+  @Autowired
+  private UsageService usageService;
+
+  @Operation(
+    summary = "Record Usage Events",
+    description = "Queues launch, progress and complete events. They are written in batches and show up "
+      + "on the dashboard after the next flush"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "202", description = "Events accepted",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Invalid event",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "503", description = "Usage buffer full, retry later",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/events")
+  public ResponseEntity<Map<String, Object>> recordEvents(@RequestBody List<UsageEventRequest> events) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      int rejected = usageService.record(events);
+      response.put("accepted", events.size() - rejected);
+      response.put("rejected", rejected);
+      if (rejected > 0) {
+        response.put("error", "Usage buffer is full, retry the rejected events later");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+      }
+      return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Usage Dashboard",
+    description = "Launches, progress events, completions, watch time and active learners per bucket, "
+      + "read from the pre-aggregated rollups"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Dashboard retrieved successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Invalid granularity or range",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @GetMapping("/dashboard")
+  public ResponseEntity<Map<String, Object>> dashboard(
+    @Parameter(description = "minute, hour or day") @RequestParam(defaultValue = "hour") String granularity,
+    @Parameter(description = "Range start (ISO-8601), 24 buckets before to by default") @RequestParam(required = false) String from,
+    @Parameter(description = "Range end, exclusive (ISO-8601), the current bucket by default") @RequestParam(required = false) String to,
+    @Parameter(description = "Training ID; all courses when omitted") @RequestParam(required = false) String trainingId) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      response.putAll(usageService.getDashboard(granularity, from, to, trainingId));
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to load usage dashboard: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Top Courses",
+    description = "Courses ranked by launches over whole days, the last 7 days by default"
+  )
+  @GetMapping("/courses/top")
+  public ResponseEntity<Map<String, Object>> topCourses(
+    @Parameter(description = "Range start (ISO-8601)") @RequestParam(required = false) String from,
+    @Parameter(description = "Range end, exclusive (ISO-8601)") @RequestParam(required = false) String to,
+    @Parameter(description = "Number of courses") @RequestParam(defaultValue = "10") int limit) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      response.put("courses", usageService.getTopCourses(from, to, limit));
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to load top courses: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Usage Pipeline Status",
+    description = "Buffer occupancy and flush counters of the usage write-behind pipeline"
+  )
+  @GetMapping("/status")
+  public ResponseEntity<Map<String, Object>> status() {
+    return ResponseEntity.ok(usageService.getStatus());
+  }
+}
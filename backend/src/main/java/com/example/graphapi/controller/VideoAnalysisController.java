@@ -0,0 +1,131 @@
+package com.example.graphapi.controller;
+
+import com.example.graphapi.model.DriveVideoAnalysisRequest;
+import com.example.graphapi.model.VideoAnalysisRequest;
+import com.example.graphapi.model.VideoAnalysisResult;
+import com.example.graphapi.service.GraphApiService;
+import com.example.graphapi.service.VideoAnalysisService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/video-analysis")
+@CrossOrigin(origins = "*", allowedHeaders = "*")
+public class VideoAnalysisController {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Autowired
+  private VideoAnalysisService videoAnalysisService;
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Operation(
+    summary = "Analyze Video",
+    description = "Samples keyframes of a drive video and returns thumbnails, scene-change timestamps and basic stats"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Video analyzed successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "400", description = "Missing drive or item ID, or the item is not a video",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "503", description = "Too many videos queued for analysis",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/analyze-video")
+  public ResponseEntity<Map<String, Object>> analyzeVideo(
+    @Parameter(description = "Request containing Azure AD access token, drive ID and item ID of the video", required = true)
+    @RequestBody VideoAnalysisRequest videoAnalysisRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      if (videoAnalysisRequest.getDriveId() == null || videoAnalysisRequest.getItemId() == null) {
+        response.put("error", "driveId and itemId are required");
+        return ResponseEntity.badRequest().body(response);
+      }
+      if (!graphApiService.validateToken(videoAnalysisRequest.getAccessToken())) {
+        response.put("error", "Invalid access token");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+      }
+      VideoAnalysisResult result = videoAnalysisService.analyzeVideo(videoAnalysisRequest.getAccessToken(),
+        videoAnalysisRequest.getDriveId(), videoAnalysisRequest.getItemId());
+      response.putAll(objectMapper.convertValue(result, new TypeReference<Map<String, Object>>() {}));
+      return ResponseEntity.ok(response);
+    } catch (IllegalArgumentException e) {
+      response.put("error", e.getMessage());
+      return ResponseEntity.badRequest().body(response);
+    } catch (RejectedExecutionException e) {
+      response.put("error", "Too many videos queued for analysis, retry later");
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to analyze video: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Analyze Drive Videos",
+    description = "Analyzes the videos below a drive folder concurrently within a global decoder memory budget"
+  )
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Videos analyzed successfully",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "401", description = "Invalid token",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "503", description = "Too many videos queued for analysis",
+      content = @Content(mediaType = "application/json")),
+    @ApiResponse(responseCode = "500", description = "Internal server error",
+      content = @Content(mediaType = "application/json"))
+  })
+  @PostMapping("/analyze-drive-videos")
+  public ResponseEntity<Map<String, Object>> analyzeDriveVideos(
+    @Parameter(description = "Request containing Azure AD access token, drive ID and item ID", required = true)
+    @RequestBody DriveVideoAnalysisRequest driveVideoAnalysisRequest) {
+    Map<String, Object> response = new HashMap<>();
+
+    try {
+      if (!graphApiService.validateToken(driveVideoAnalysisRequest.getAccessToken())) {
+        response.put("error", "Invalid access token");
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+      }
+      response.putAll(videoAnalysisService.analyzeDriveVideos(driveVideoAnalysisRequest.getAccessToken(),
+        driveVideoAnalysisRequest.getDriveId(), driveVideoAnalysisRequest.getItemId()));
+      response.put("driveId", driveVideoAnalysisRequest.getDriveId());
+      response.put("itemId", driveVideoAnalysisRequest.getItemId());
+      return ResponseEntity.ok(response);
+    } catch (RejectedExecutionException e) {
+      response.put("error", "Too many videos queued for analysis, retry later");
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    } catch (Exception e) {
+      response.put("error", "Failed to analyze drive videos: " + e.getMessage());
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+  }
+
+  @Operation(
+    summary = "Video Analysis Status",
+    description = "Busy decoder workers, queued videos and the free part of the decoder memory budget"
+  )
+  @GetMapping("/status")
+  public ResponseEntity<Map<String, Object>> status() {
+    return ResponseEntity.ok(videoAnalysisService.getStatus());
+  }
+}
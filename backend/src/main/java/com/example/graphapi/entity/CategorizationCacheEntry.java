@@ -0,0 +1,99 @@
+package com.example.graphapi.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "Categorization_Cache", indexes = @Index(name = "idx_categorization_cache_last_used", columnList = "Last_Used_At"))
+public class CategorizationCacheEntry {
+
+  @Id
+  @Column(name = "Item_ID")
+  private String itemId;
+
+  @Column(name = "Content_Tag", nullable = false)
+  private String contentTag;
+
+  @Column(name = "Category")
+  private String category;
+
+  @Column(name = "Training_Topic")
+  private String trainingTopic;
+
+  @Column(name = "Module_Topic")
+  private String moduleTopic;
+
+  @Column(name = "Trainer_Name")
+  private String instructorName;
+
+  @Column(name = "Module_Duration")
+  private Double duration;
+
+  @Column(name = "Last_Used_At", nullable = false)
+  private Instant lastUsedAt;
+
+  public String getItemId() {
+    return itemId;
+  }
+
+  public void setItemId(String itemId) {
+    this.itemId = itemId;
+  }
+
+  public String getContentTag() {
+    return contentTag;
+  }
+
+  public void setContentTag(String contentTag) {
+    this.contentTag = contentTag;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public void setCategory(String category) {
+    this.category = category;
+  }
+
+  public String getTrainingTopic() {
+    return trainingTopic;
+  }
+
+  public void setTrainingTopic(String trainingTopic) {
+    this.trainingTopic = trainingTopic;
+  }
+
+  public String getModuleTopic() {
+    return moduleTopic;
+  }
+
+  public void setModuleTopic(String moduleTopic) {
+    this.moduleTopic = moduleTopic;
+  }
+
+  public String getInstructorName() {
+    return instructorName;
+  }
+
+  public void setInstructorName(String instructorName) {
+    this.instructorName = instructorName;
+  }
+
+  public Double getDuration() {
+    return duration;
+  }
+
+  public void setDuration(Double duration) {
+    this.duration = duration;
+  }
+
+  public Instant getLastUsedAt() {
+    return lastUsedAt;
+  }
+
+  public void setLastUsedAt(Instant lastUsedAt) {
+    this.lastUsedAt = lastUsedAt;
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.graphapi.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "Drive_Delta_Token",
+  uniqueConstraints = @UniqueConstraint(columnNames = {"Drive_ID", "Root_Item_ID"}))
+public class DriveDeltaToken {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "Drive_ID", nullable = false)
+  private String driveId;
+
+  @Column(name = "Root_Item_ID", nullable = false)
+  private String rootItemId;
+
+  @Column(name = "Delta_Link", nullable = false, length = 4096)
+  private String deltaLink;
+
+  @Column(name = "Updated_At")
+  private Instant updatedAt;
+
+  public String getDriveId() {
+    return driveId;
+  }
+
+  public void setDriveId(String driveId) {
+    this.driveId = driveId;
+  }
+
+  public String getRootItemId() {
+    return rootItemId;
+  }
+
+  public void setRootItemId(String rootItemId) {
+    this.rootItemId = rootItemId;
+  }
+
+  public String getDeltaLink() {
+    return deltaLink;
+  }
+
+  public void setDeltaLink(String deltaLink) {
+    this.deltaLink = deltaLink;
+  }
+
+  public Instant getUpdatedAt() {
+    return updatedAt;
+  }
+
+  public void setUpdatedAt(Instant updatedAt) {
+    this.updatedAt = updatedAt;
+  }
+}
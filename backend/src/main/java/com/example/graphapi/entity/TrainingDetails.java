@@ -1,10 +1,19 @@
 package com.example.graphapi.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "Training_Details")
+@Table(name = "Training_Details",
+  uniqueConstraints = @UniqueConstraint(name = "uk_training_details_detail_id", columnNames = "Training_Detail_ID"),
+  indexes = {
+    // Catalog listings seek on id within a filter, see CatalogRepository
+    @Index(name = "idx_training_details_training_id_id", columnList = "Training_ID, id"),
+    @Index(name = "idx_training_details_category_id", columnList = "Category, id"),
+    @Index(name = "idx_training_details_topic_id", columnList = "Training_Topic, id"),
+    @Index(name = "idx_training_details_trainer_id", columnList = "Trainer_Name, id")
+  })
 public class TrainingDetails {
 
   @Id
@@ -14,30 +23,39 @@ public class TrainingDetails {
   @Column(name="Training_ID")
   private String trainingId;
 
-  @Column(name=" Training_Detail_ID")
+  @Column(name="Training_Detail_ID")
   private String  trainingDetailId;
 
-  @Column(name=" Module_Name")
+  @Column(name="Module_Name")
   private String  moduleName;
 
-  @Column(name=" Module_Topic")
+  @Column(name="Module_Topic")
   private String  moduleTopic;
 
-  @Column(name=" Module_Duration")
+  @Column(name="Module_Duration")
   private Double duration;
 
-  @Column(name=" Module_Path")
+  @Column(name="Module_Path")
   private String modulePath;
 
-  @Column(name=" Trainer_Name")
+  // Subfolder path below the training folder, empty for files directly in it
+  @Column(name="Module_Folder", length = 1024)
+  private String moduleFolder;
+
+  @Column(name="Trainer_Name")
   private String instructorName;
 
-  @Column(name=" Category")
+  @Column(name="Category")
   private String category;
 
-  @Column(name=" Training topic")
+  @Column(name="Training_Topic")
   private String trainingTopic;
 
+  // Set when the categorizer was unavailable and the row carries the fallback category
+  @Transient
+  @JsonIgnore
+  private boolean fallback;
+
   public String getTrainingId() {
     return trainingId;
   }
@@ -109,4 +127,20 @@ public class TrainingDetails {
   public String getTrainingTopic() {
     return trainingTopic;
   }
+
+  public String getModuleFolder() {
+    return moduleFolder;
+  }
+
+  public void setModuleFolder(String moduleFolder) {
+    this.moduleFolder = moduleFolder;
+  }
+
+  public boolean isFallback() {
+    return fallback;
+  }
+
+  public void setFallback(boolean fallback) {
+    this.fallback = fallback;
+  }
 }
@@ -3,7 +3,13 @@ package com.example.graphapi.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "Training_Master")
+@Table(name = "Training_Master",
+  uniqueConstraints = @UniqueConstraint(name = "uk_training_master_training_id", columnNames = "Training_ID"),
+  indexes = {
+    // Catalog listings seek on id within a filter, see CatalogRepository
+    @Index(name = "idx_training_master_category_id", columnList = "Training_Category, id"),
+    @Index(name = "idx_training_master_topic_id", columnList = "Training_Topic, id")
+  })
 public class TrainingMaster {
 
   @Id
@@ -13,19 +19,19 @@ public class TrainingMaster {
   @Column(name="Training_ID")
   private String trainingID;
 
-  @Column(name=" Training_Name")
+  @Column(name="Training_Name")
   private String  trainingName;
 
-  @Column(name=" Training_Category")
+  @Column(name="Training_Category")
   private String  category;
 
-  @Column(name=" Training_Topic")
+  @Column(name="Training_Topic")
   private String  trainingTopic;
 
-  @Column(name=" Training_Duration")
+  @Column(name="Training_Duration")
   private long  duration;
 
-  @Column(name=" Training_Content_Path")
+  @Column(name="Training_Content_Path")
   private String  trainingContentPath;
 
   public String getTrainingID() {
@@ -0,0 +1,46 @@
+package com.example.graphapi.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// One row per learner active on a course in an hour or day bucket; Training_ID '*' spans all courses
+@Entity
+@Table(name = "Usage_Active_Learners",
+  uniqueConstraints = @UniqueConstraint(name = "uk_usage_active_learners_bucket",
+    columnNames = {"Granularity", "Bucket_Start", "Training_ID", "User_ID"}),
+  indexes = @Index(name = "idx_usage_active_learners_course", columnList = "Granularity, Training_ID, Bucket_Start"))
+public class UsageActiveLearner {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "Granularity", nullable = false, length = 8)
+  private String granularity;
+
+  @Column(name = "Bucket_Start", nullable = false)
+  private Instant bucketStart;
+
+  @Column(name = "Training_ID", nullable = false)
+  private String trainingId;
+
+  @Column(name = "User_ID", nullable = false)
+  private String userId;
+
+  public String getGranularity() {
+    return granularity;
+  }
+
+  public Instant getBucketStart() {
+    return bucketStart;
+  }
+
+  public String getTrainingId() {
+    return trainingId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.graphapi.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Raw usage event; written in batches by UsageRepository, dashboards read Usage_Rollups instead
+@Entity
+@Table(name = "Usage_Events", indexes = @Index(name = "idx_usage_events_occurred_at", columnList = "Occurred_At"))
+public class UsageEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "Event_Type", nullable = false, length = 32)
+  private String eventType;
+
+  @Column(name = "Training_ID", nullable = false)
+  private String trainingId;
+
+  @Column(name = "Training_Detail_ID")
+  private String trainingDetailId;
+
+  @Column(name = "User_ID")
+  private String userId;
+
+  @Column(name = "Watch_Seconds")
+  private Double watchSeconds;
+
+  @Column(name = "Occurred_At", nullable = false)
+  private Instant occurredAt;
+
+  @Column(name = "Received_At", nullable = false)
+  private Instant receivedAt;
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getTrainingId() {
+    return trainingId;
+  }
+
+  public void setTrainingId(String trainingId) {
+    this.trainingId = trainingId;
+  }
+
+  public String getTrainingDetailId() {
+    return trainingDetailId;
+  }
+
+  public void setTrainingDetailId(String trainingDetailId) {
+    this.trainingDetailId = trainingDetailId;
+  }
+
+  public String getUserId() {
+    return userId;
+  }
+
+  public void setUserId(String userId) {
+    this.userId = userId;
+  }
+
+  public Double getWatchSeconds() {
+    return watchSeconds;
+  }
+
+  public void setWatchSeconds(Double watchSeconds) {
+    this.watchSeconds = watchSeconds;
+  }
+
+  public Instant getOccurredAt() {
+    return occurredAt;
+  }
+
+  public void setOccurredAt(Instant occurredAt) {
+    this.occurredAt = occurredAt;
+  }
+
+  public Instant getReceivedAt() {
+    return receivedAt;
+  }
+
+  public void setReceivedAt(Instant receivedAt) {
+    this.receivedAt = receivedAt;
+  }
+}
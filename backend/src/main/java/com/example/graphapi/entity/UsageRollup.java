@@ -0,0 +1,67 @@
+package com.example.graphapi.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Usage counters of one course in one minute, hour or day bucket, incremented on every flush
+@Entity
+@Table(name = "Usage_Rollups",
+  uniqueConstraints = @UniqueConstraint(name = "uk_usage_rollups_bucket",
+    columnNames = {"Granularity", "Bucket_Start", "Training_ID"}),
+  indexes = @Index(name = "idx_usage_rollups_course", columnList = "Granularity, Training_ID, Bucket_Start"))
+public class UsageRollup {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "Granularity", nullable = false, length = 8)
+  private String granularity;
+
+  @Column(name = "Bucket_Start", nullable = false)
+  private Instant bucketStart;
+
+  @Column(name = "Training_ID", nullable = false)
+  private String trainingId;
+
+  @Column(name = "Launches", nullable = false)
+  private long launches;
+
+  @Column(name = "Progress_Events", nullable = false)
+  private long progressEvents;
+
+  @Column(name = "Completions", nullable = false)
+  private long completions;
+
+  @Column(name = "Watch_Seconds", nullable = false)
+  private double watchSeconds;
+
+  public String getGranularity() {
+    return granularity;
+  }
+
+  public Instant getBucketStart() {
+    return bucketStart;
+  }
+
+  public String getTrainingId() {
+    return trainingId;
+  }
+
+  public long getLaunches() {
+    return launches;
+  }
+
+  public long getProgressEvents() {
+    return progressEvents;
+  }
+
+  public long getCompletions() {
+    return completions;
+  }
+
+  public double getWatchSeconds() {
+    return watchSeconds;
+  }
+}
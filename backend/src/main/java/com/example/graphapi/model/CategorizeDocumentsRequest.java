@@ -0,0 +1,43 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Request to categorize documents that were already listed by the client")
+public class CategorizeDocumentsRequest {
+
+    @Schema(description = "JSON array of drive items, or a Graph page with a value array", required = true)
+    private String documentsJson;
+
+    @Schema(description = "Azure AD access token; without it documents are categorized by name with the local categorizer")
+    private String accessToken;
+
+    @Schema(description = "Drive ID the documents belong to")
+    private String driveId;
+
+    public CategorizeDocumentsRequest() {
+    }
+
+    public String getDocumentsJson() {
+        return documentsJson;
+    }
+
+    public void setDocumentsJson(String documentsJson) {
+        this.documentsJson = documentsJson;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public String getDriveId() {
+        return driveId;
+    }
+
+    public void setDriveId(String driveId) {
+        this.driveId = driveId;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Request to categorize a selection of drive items; folders are expanded to the files below them")
+public class CategorizeDriveItemsRequest {
+
+    @Schema(description = "Azure AD access token", required = true, example = "eyJ0eXAiOiJKV1QiLCJhbGciOiJS...")
+    private String accessToken;
+
+    @Schema(description = "Drive ID", required = true)
+    private String driveId;
+
+    @Schema(description = "Item ID of a single folder or file to categorize")
+    private String itemId;
+
+    @Schema(description = "Item IDs of the selected folders and files; duplicates are ignored")
+    private List<String> itemIds;
+
+    public CategorizeDriveItemsRequest() {
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public String getDriveId() {
+        return driveId;
+    }
+
+    public void setDriveId(String driveId) {
+        this.driveId = driveId;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+
+    public List<String> getItemIds() {
+        return itemIds;
+    }
+
+    public void setItemIds(List<String> itemIds) {
+        this.itemIds = itemIds;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.graphapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Catalog row of Training_Master; id is the keyset cursor and is not serialized
+public record CourseSummary(
+  @JsonIgnore Long id,
+  String trainingId,
+  String trainingName,
+  String category,
+  String trainingTopic,
+  long duration,
+  String contentPath) {}
@@ -0,0 +1,107 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of a drive sync")
+public class DeltaSyncResult {
+
+  @Schema(description = "full when the drive was crawled, incremental when only delta changes were applied",
+    example = "incremental")
+  private String mode;
+
+  @Schema(description = "Items reported by the delta query")
+  private int changedItems;
+
+  private int addedTrainings;
+
+  private int updatedTrainings;
+
+  private int deletedTrainings;
+
+  private int upsertedModules;
+
+  private int deletedModules;
+
+  private long elapsedMillis;
+
+  @Schema(description = "Ingestion statistics of the crawl, only set for full syncs")
+  private IngestionStats ingestion;
+
+  public DeltaSyncResult() {}
+
+  public DeltaSyncResult(String mode) {
+    this.mode = mode;
+  }
+
+  public String getMode() {
+    return mode;
+  }
+
+  public void setMode(String mode) {
+    this.mode = mode;
+  }
+
+  public int getChangedItems() {
+    return changedItems;
+  }
+
+  public void setChangedItems(int changedItems) {
+    this.changedItems = changedItems;
+  }
+
+  public int getAddedTrainings() {
+    return addedTrainings;
+  }
+
+  public void setAddedTrainings(int addedTrainings) {
+    this.addedTrainings = addedTrainings;
+  }
+
+  public int getUpdatedTrainings() {
+    return updatedTrainings;
+  }
+
+  public void setUpdatedTrainings(int updatedTrainings) {
+    this.updatedTrainings = updatedTrainings;
+  }
+
+  public int getDeletedTrainings() {
+    return deletedTrainings;
+  }
+
+  public void setDeletedTrainings(int deletedTrainings) {
+    this.deletedTrainings = deletedTrainings;
+  }
+
+  public int getUpsertedModules() {
+    return upsertedModules;
+  }
+
+  public void setUpsertedModules(int upsertedModules) {
+    this.upsertedModules = upsertedModules;
+  }
+
+  public int getDeletedModules() {
+    return deletedModules;
+  }
+
+  public void setDeletedModules(int deletedModules) {
+    this.deletedModules = deletedModules;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public IngestionStats getIngestion() {
+    return ingestion;
+  }
+
+  public void setIngestion(IngestionStats ingestion) {
+    this.ingestion = ingestion;
+  }
+}
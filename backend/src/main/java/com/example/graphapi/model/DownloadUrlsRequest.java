@@ -0,0 +1,34 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Request for the download URLs of several drive items")
+public class DownloadUrlsRequest {
+
+    @Schema(description = "Azure AD access token", required = true, example = "eyJ0eXAiOiJKV1QiLCJhbGciOiJS...")
+    private String accessToken;
+
+    @Schema(description = "Drive item IDs", required = true)
+    private List<String> itemIds;
+
+    public DownloadUrlsRequest() {
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public List<String> getItemIds() {
+        return itemIds;
+    }
+
+    public void setItemIds(List<String> itemIds) {
+        this.itemIds = itemIds;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Request to analyze the videos below a drive item")
+public class DriveVideoAnalysisRequest {
+
+    @Schema(description = "Azure AD access token", required = true, example = "eyJ0eXAiOiJKV1QiLCJhbGciOiJS...")
+    private String accessToken;
+
+    @Schema(description = "Drive ID", required = true)
+    private String driveId;
+
+    @Schema(description = "Item ID of the folder to scan", required = true)
+    private String itemId;
+
+    public DriveVideoAnalysisRequest() {
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public void setAccessToken(String accessToken) {
+        this.accessToken = accessToken;
+    }
+
+    public String getDriveId() {
+        return driveId;
+    }
+
+    public void setDriveId(String driveId) {
+        this.driveId = driveId;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(String itemId) {
+        this.itemId = itemId;
+    }
+}
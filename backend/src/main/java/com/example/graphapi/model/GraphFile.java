@@ -1,5 +1,6 @@
 package com.example.graphapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(description = "Represents a file from Microsoft OneDrive")
@@ -32,6 +33,15 @@ public class GraphFile {
 
   private boolean isFolder;
 
+  @Schema(description = "Entity tag of the item, changes with metadata or content")
+  private String eTag;
+
+  @Schema(description = "Content tag of the item, changes only with content")
+  private String cTag;
+
+  @Schema(description = "Set on delta query results when the item was removed")
+  private boolean deleted;
+
   // Constructors
   public GraphFile() {}
 
@@ -73,7 +83,7 @@ public class GraphFile {
     this.webUrl = webUrl;
   }
 
-  public long getSize() {
+  public Long getSize() {
     return size;
   }
 
@@ -121,6 +131,36 @@ public class GraphFile {
     this.isFolder = isFolder;
   }
 
+  public String getETag() {
+    return eTag;
+  }
+
+  public void setETag(String eTag) {
+    this.eTag = eTag;
+  }
+
+  public String getCTag() {
+    return cTag;
+  }
+
+  public void setCTag(String cTag) {
+    this.cTag = cTag;
+  }
+
+  // Tag that identifies the current content of a file, preferring cTag
+  @JsonIgnore
+  public String getContentTag() {
+    return cTag != null ? cTag : eTag;
+  }
+
+  public boolean getDeleted() {
+    return deleted;
+  }
+
+  public void setDeleted(boolean deleted) {
+    this.deleted = deleted;
+  }
+
   public String getFolderId() {
     return folderId;
   }
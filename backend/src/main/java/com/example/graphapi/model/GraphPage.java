@@ -0,0 +1,38 @@
+package com.example.graphapi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One page of a Graph collection response
+public class GraphPage {
+
+  private final List<GraphFile> items;
+  private final String nextLink;
+  private final String deltaLink;
+
+  public GraphPage(List<GraphFile> items, String nextLink, String deltaLink) {
+    this.items = items;
+    this.nextLink = nextLink;
+    this.deltaLink = deltaLink;
+  }
+
+  public static GraphPage empty() {
+    return new GraphPage(new ArrayList<>(), null, null);
+  }
+
+  public List<GraphFile> getItems() {
+    return items;
+  }
+
+  public String getNextLink() {
+    return nextLink;
+  }
+
+  public String getDeltaLink() {
+    return deltaLink;
+  }
+
+  public boolean hasNextPage() {
+    return nextLink != null && !nextLink.isEmpty();
+  }
+}
@@ -0,0 +1,146 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Schema(description = "Asynchronous training ingestion of a drive folder")
+public class IngestionJob {
+
+  public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+  private static final int MAX_RECORDED_ERRORS = 100;
+
+  private final String id;
+  private final String driveId;
+  private final String itemId;
+  private final Instant submittedAt = Instant.now();
+  private final AtomicInteger foldersDone = new AtomicInteger();
+  private final AtomicInteger filesDone = new AtomicInteger();
+  private final AtomicInteger errorCount = new AtomicInteger();
+  private final List<Map<String, String>> errors = Collections.synchronizedList(new ArrayList<>());
+  private final List<GraphFile> rootItems = Collections.synchronizedList(new ArrayList<>());
+  private volatile State state = State.QUEUED;
+  private volatile IngestionStats stats;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  private volatile String failure;
+
+  public IngestionJob(String id, String driveId, String itemId) {
+    this.id = id;
+    this.driveId = driveId;
+    this.itemId = itemId;
+  }
+
+  // Stats are created here rather than at submit so elapsed time and throughput leave out the queue wait
+  public void start() {
+    stats = new IngestionStats();
+    startedAt = Instant.now();
+    state = State.RUNNING;
+  }
+
+  public void complete() {
+    stats.finish();
+    finishedAt = Instant.now();
+    state = State.COMPLETED;
+  }
+
+  public void fail(String message) {
+    stats.finish();
+    failure = message;
+    finishedAt = Instant.now();
+    state = State.FAILED;
+  }
+
+  public void addRootItems(List<GraphFile> items) {
+    rootItems.addAll(items);
+  }
+
+  public void folderCompleted(int files) {
+    foldersDone.incrementAndGet();
+    filesDone.addAndGet(files);
+  }
+
+  public void folderFailed(String folderId, String folderName, String message) {
+    if (errorCount.incrementAndGet() <= MAX_RECORDED_ERRORS) {
+      Map<String, String> error = new LinkedHashMap<>();
+      error.put("folderId", folderId);
+      error.put("folderName", folderName);
+      error.put("message", message);
+      errors.add(error);
+    }
+  }
+
+  public boolean isFinished() {
+    return state == State.COMPLETED || state == State.FAILED;
+  }
+
+  public Map<String, Object> getProgress() {
+    IngestionStats current = stats;
+    long elapsedMillis = current == null ? 0 : current.getElapsedMillis();
+    Map<String, Object> progress = new LinkedHashMap<>();
+    progress.put("jobId", id);
+    progress.put("state", state);
+    progress.put("foldersDone", foldersDone.get());
+    progress.put("filesDone", filesDone.get());
+    progress.put("errors", errorCount.get());
+    progress.put("rootItemsListed", rootItems.size());
+    progress.put("elapsedMillis", elapsedMillis);
+    progress.put("filesPerSecond", elapsedMillis == 0 ? 0.0 : filesDone.get() * 1000.0 / elapsedMillis);
+    return progress;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getDriveId() {
+    return driveId;
+  }
+
+  public String getItemId() {
+    return itemId;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public Instant getSubmittedAt() {
+    return submittedAt;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public String getFailure() {
+    return failure;
+  }
+
+  public IngestionStats getStats() {
+    return stats;
+  }
+
+  public List<Map<String, String>> getErrors() {
+    synchronized (errors) {
+      return new ArrayList<>(errors);
+    }
+  }
+
+  public List<GraphFile> getRootItems() {
+    synchronized (rootItems) {
+      return new ArrayList<>(rootItems);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.example.graphapi.model;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-run figures are kept here for the job status; every record is also added to the
+ * application-wide meters (ingestion.stage.*, ingestion.files, ingestion.bytes,
+ * ingestion.errors, ingestion.runs) through the global Micrometer registry, which Spring Boot
+ * wires to the Prometheus registry.
+ */
+@Schema(description = "Per-stage throughput of a training ingestion run")
+public class IngestionStats {
+
+  private final long startedAtNanos = System.nanoTime();
+  private volatile long finishedAtNanos;
+  private final Map<String, Stage> stages = new ConcurrentHashMap<>();
+  private final LongAdder files = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+
+  public <T> T time(String stage, Supplier<T> work) {
+    long start = System.nanoTime();
+    try {
+      return work.get();
+    } finally {
+      record(stage, 1, System.nanoTime() - start);
+    }
+  }
+
+  public void record(String stage, long items, long nanos) {
+    Stage s = stages.computeIfAbsent(stage, Stage::new);
+    s.items.add(items);
+    s.calls.increment();
+    s.nanos.add(nanos);
+    s.itemsCounter.increment(items);
+    if (nanos > 0) {
+      s.timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public void recordFiles(long count, long byteCount) {
+    files.add(count);
+    bytes.add(byteCount);
+    Metrics.counter("ingestion.files").increment(count);
+    Metrics.counter("ingestion.bytes").increment(byteCount);
+  }
+
+  public void recordError(String stage) {
+    errors.increment();
+    Metrics.counter("ingestion.errors", "stage", stage).increment();
+  }
+
+  // Only the first call counts, jobs finish the stats again after the service did
+  public synchronized void finish() {
+    if (finishedAtNanos != 0) {
+      return;
+    }
+    finishedAtNanos = System.nanoTime();
+    Metrics.timer("ingestion.runs").record(finishedAtNanos - startedAtNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public long getFiles() {
+    return files.sum();
+  }
+
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  public long getElapsedMillis() {
+    long end = finishedAtNanos != 0 ? finishedAtNanos : System.nanoTime();
+    return (end - startedAtNanos) / 1_000_000;
+  }
+
+  // items/s is measured against wall-clock time of the whole run, busy time is summed over all workers
+  public Map<String, Map<String, Object>> getStages() {
+    double elapsedSeconds = Math.max(getElapsedMillis(), 1) / 1000.0;
+    Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+    stages.forEach((name, s) -> {
+      long calls = s.calls.sum();
+      long busyNanos = s.nanos.sum();
+      Map<String, Object> stage = new LinkedHashMap<>();
+      stage.put("items", s.items.sum());
+      stage.put("calls", calls);
+      stage.put("busyMillis", busyNanos / 1_000_000);
+      stage.put("avgMillisPerCall", calls == 0 ? 0.0 : busyNanos / 1_000_000.0 / calls);
+      stage.put("itemsPerSecond", s.items.sum() / elapsedSeconds);
+      summary.put(name, stage);
+    });
+    return summary;
+  }
+
+  @Override
+  public String toString() {
+    return "IngestionStats{elapsedMillis=" + getElapsedMillis() + ", files=" + getFiles() + ", bytes=" + getBytes()
+      + ", errors=" + getErrors() + ", stages=" + getStages() + "}";
+  }
+
+  private static class Stage {
+    private final LongAdder items = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final Counter itemsCounter;
+    private final Timer timer;
+
+    private Stage(String name) {
+      itemsCounter = Metrics.counter("ingestion.stage.items", "stage", name);
+      timer = Timer.builder("ingestion.stage.duration")
+        .tag("stage", name)
+        .publishPercentileHistogram()
+        .register(Metrics.globalRegistry);
+    }
+  }
+}
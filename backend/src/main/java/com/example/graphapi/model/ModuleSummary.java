@@ -0,0 +1,17 @@
+package com.example.graphapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Catalog row of Training_Details; id is the keyset cursor and is not serialized
+public record ModuleSummary(
+  @JsonIgnore Long id,
+  String trainingId,
+  String moduleId,
+  String moduleName,
+  String moduleTopic,
+  String moduleFolder,
+  Double duration,
+  String modulePath,
+  String trainerName,
+  String category,
+  String trainingTopic) {}
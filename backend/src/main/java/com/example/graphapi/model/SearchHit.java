@@ -0,0 +1,4 @@
+package com.example.graphapi.model;
+
+// A ranked search result; item is a CourseSummary or a ModuleSummary depending on type
+public record SearchHit(String type, double score, Object item) {}
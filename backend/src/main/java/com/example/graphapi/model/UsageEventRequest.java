@@ -0,0 +1,77 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "A course launch, progress or completion reported by the client")
+public class UsageEventRequest {
+
+    @Schema(description = "launch, progress or complete", required = true, example = "progress")
+    private String type;
+
+    @Schema(description = "Training ID of the course", required = true)
+    private String trainingId;
+
+    @Schema(description = "Training detail ID of the module, if any")
+    private String moduleId;
+
+    @Schema(description = "ID of the learner")
+    private String userId;
+
+    @Schema(description = "Seconds watched since the previous progress event", example = "30")
+    private Double watchSeconds;
+
+    @Schema(description = "ISO-8601 time the event happened; defaults to the time it was received",
+        example = "2024-05-01T10:15:30Z")
+    private String occurredAt;
+
+    public UsageEventRequest() {
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTrainingId() {
+        return trainingId;
+    }
+
+    public void setTrainingId(String trainingId) {
+        this.trainingId = trainingId;
+    }
+
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public void setModuleId(String moduleId) {
+        this.moduleId = moduleId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public Double getWatchSeconds() {
+        return watchSeconds;
+    }
+
+    public void setWatchSeconds(Double watchSeconds) {
+        this.watchSeconds = watchSeconds;
+    }
+
+    public String getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(String occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.graphapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Sampled keyframe analysis of a video")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VideoAnalysisResult {
+
+  private String fileName;
+  private String itemId;
+  private Double duration;
+  private Integer width;
+  private Integer height;
+  private Double frameRate;
+  private String videoCodec;
+  private Integer totalFramesAnalyzed;
+  private Double averageBrightness;
+  private List<Double> sceneChanges = new ArrayList<>();
+  private List<Map<String, Object>> thumbnails = new ArrayList<>();
+  private List<Map<String, Object>> frameAnalysis = new ArrayList<>();
+  private List<String> detectedObjects = new ArrayList<>();
+  private Long processingMillis;
+  private String error;
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public void setFileName(String fileName) {
+    this.fileName = fileName;
+  }
+
+  public String getItemId() {
+    return itemId;
+  }
+
+  public void setItemId(String itemId) {
+    this.itemId = itemId;
+  }
+
+  public Double getDuration() {
+    return duration;
+  }
+
+  public void setDuration(Double duration) {
+    this.duration = duration;
+  }
+
+  public Integer getWidth() {
+    return width;
+  }
+
+  public void setWidth(Integer width) {
+    this.width = width;
+  }
+
+  public Integer getHeight() {
+    return height;
+  }
+
+  public void setHeight(Integer height) {
+    this.height = height;
+  }
+
+  public Double getFrameRate() {
+    return frameRate;
+  }
+
+  public void setFrameRate(Double frameRate) {
+    this.frameRate = frameRate;
+  }
+
+  public String getVideoCodec() {
+    return videoCodec;
+  }
+
+  public void setVideoCodec(String videoCodec) {
+    this.videoCodec = videoCodec;
+  }
+
+  public Integer getTotalFramesAnalyzed() {
+    return totalFramesAnalyzed;
+  }
+
+  public void setTotalFramesAnalyzed(Integer totalFramesAnalyzed) {
+    this.totalFramesAnalyzed = totalFramesAnalyzed;
+  }
+
+  public Double getAverageBrightness() {
+    return averageBrightness;
+  }
+
+  public void setAverageBrightness(Double averageBrightness) {
+    this.averageBrightness = averageBrightness;
+  }
+
+  public List<Double> getSceneChanges() {
+    return sceneChanges;
+  }
+
+  public void setSceneChanges(List<Double> sceneChanges) {
+    this.sceneChanges = sceneChanges;
+  }
+
+  public List<Map<String, Object>> getThumbnails() {
+    return thumbnails;
+  }
+
+  public void setThumbnails(List<Map<String, Object>> thumbnails) {
+    this.thumbnails = thumbnails;
+  }
+
+  public List<Map<String, Object>> getFrameAnalysis() {
+    return frameAnalysis;
+  }
+
+  public void setFrameAnalysis(List<Map<String, Object>> frameAnalysis) {
+    this.frameAnalysis = frameAnalysis;
+  }
+
+  public List<String> getDetectedObjects() {
+    return detectedObjects;
+  }
+
+  public void setDetectedObjects(List<String> detectedObjects) {
+    this.detectedObjects = detectedObjects;
+  }
+
+  public Long getProcessingMillis() {
+    return processingMillis;
+  }
+
+  public void setProcessingMillis(Long processingMillis) {
+    this.processingMillis = processingMillis;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.graphapi.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Container metadata of a video read from its header and index")
+public class VideoMetadata {
+
+  private double durationSeconds;
+  private int width;
+  private int height;
+  private String videoCodec;
+  private String audioCodec;
+  private String format;
+  private double frameRate;
+  private long sizeBytes;
+  private long bytesRead;
+  private long probeMillis;
+
+  public double getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public void setDurationSeconds(double durationSeconds) {
+    this.durationSeconds = durationSeconds;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public void setWidth(int width) {
+    this.width = width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public void setHeight(int height) {
+    this.height = height;
+  }
+
+  public String getVideoCodec() {
+    return videoCodec;
+  }
+
+  public void setVideoCodec(String videoCodec) {
+    this.videoCodec = videoCodec;
+  }
+
+  public String getAudioCodec() {
+    return audioCodec;
+  }
+
+  public void setAudioCodec(String audioCodec) {
+    this.audioCodec = audioCodec;
+  }
+
+  public String getFormat() {
+    return format;
+  }
+
+  public void setFormat(String format) {
+    this.format = format;
+  }
+
+  public double getFrameRate() {
+    return frameRate;
+  }
+
+  public void setFrameRate(double frameRate) {
+    this.frameRate = frameRate;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  public void setSizeBytes(long sizeBytes) {
+    this.sizeBytes = sizeBytes;
+  }
+
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  public void setBytesRead(long bytesRead) {
+    this.bytesRead = bytesRead;
+  }
+
+  public long getProbeMillis() {
+    return probeMillis;
+  }
+
+  public void setProbeMillis(long probeMillis) {
+    this.probeMillis = probeMillis;
+  }
+}
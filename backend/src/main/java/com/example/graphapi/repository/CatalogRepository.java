@@ -0,0 +1,131 @@
+package com.example.graphapi.repository;
+
+import com.example.graphapi.model.CourseSummary;
+import com.example.graphapi.model.ModuleSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read side of the training catalog. Pages are keyset (seek) pages ordered by id: the next
+ * page starts after the last id of the previous one, so every page is an index range scan
+ * of limit rows whatever its position. Only the predicates that are set end up in the query,
+ * which keeps them matchable against the (filter, id) indexes on both tables. Rows are
+ * selected straight into DTOs, no entities are loaded.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class CatalogRepository {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  public List<CourseSummary> findCourses(String category, String topic, String trainer, Long after, int limit) {
+    StringBuilder jpql = new StringBuilder("select new com.example.graphapi.model.CourseSummary("
+      + "m.id, m.trainingID, m.trainingName, m.category, m.trainingTopic, m.duration, m.trainingContentPath)"
+      + " from TrainingMaster m where 1 = 1");
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    if (category != null) {
+      jpql.append(" and m.category = :category");
+      parameters.put("category", category);
+    }
+    if (topic != null) {
+      jpql.append(" and m.trainingTopic = :topic");
+      parameters.put("topic", topic);
+    }
+    if (trainer != null) {
+      // Distinct training ids from the (Trainer_Name, id) index, joined back on the unique Training_ID
+      jpql.append(" and m.trainingID in (select distinct d.trainingId from TrainingDetails d"
+        + " where d.instructorName = :trainer)");
+      parameters.put("trainer", trainer);
+    }
+    if (after != null) {
+      jpql.append(" and m.id > :after");
+      parameters.put("after", after);
+    }
+    jpql.append(" order by m.id");
+    return page(entityManager.createQuery(jpql.toString(), CourseSummary.class), parameters, limit);
+  }
+
+  public Optional<CourseSummary> findCourse(String trainingId) {
+    return entityManager.createQuery("select new com.example.graphapi.model.CourseSummary("
+        + "m.id, m.trainingID, m.trainingName, m.category, m.trainingTopic, m.duration, m.trainingContentPath)"
+        + " from TrainingMaster m where m.trainingID = :trainingId", CourseSummary.class)
+      .setParameter("trainingId", trainingId)
+      .setMaxResults(1)
+      .getResultStream()
+      .findFirst();
+  }
+
+  public List<ModuleSummary> findModules(String trainingId, String category, String topic, String trainer,
+                                         Long after, int limit) {
+    StringBuilder jpql = new StringBuilder("select new com.example.graphapi.model.ModuleSummary("
+      + "d.id, d.trainingId, d.trainingDetailId, d.moduleName, d.moduleTopic, d.moduleFolder, d.duration,"
+      + " d.modulePath, d.instructorName, d.category, d.trainingTopic)"
+      + " from TrainingDetails d where 1 = 1");
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    if (trainingId != null) {
+      jpql.append(" and d.trainingId = :trainingId");
+      parameters.put("trainingId", trainingId);
+    }
+    if (category != null) {
+      jpql.append(" and d.category = :category");
+      parameters.put("category", category);
+    }
+    if (topic != null) {
+      jpql.append(" and d.trainingTopic = :topic");
+      parameters.put("topic", topic);
+    }
+    if (trainer != null) {
+      jpql.append(" and d.instructorName = :trainer");
+      parameters.put("trainer", trainer);
+    }
+    if (after != null) {
+      jpql.append(" and d.id > :after");
+      parameters.put("after", after);
+    }
+    jpql.append(" order by d.id");
+    return page(entityManager.createQuery(jpql.toString(), ModuleSummary.class), parameters, limit);
+  }
+
+  // Module count and summed duration of one course, read from the Training_ID index
+  public Object[] findModuleTotals(String trainingId) {
+    return entityManager.createQuery("select count(d), coalesce(sum(d.duration), 0)"
+        + " from TrainingDetails d where d.trainingId = :trainingId", Object[].class)
+      .setParameter("trainingId", trainingId)
+      .getSingleResult();
+  }
+
+  // Whole-table scans for rebuilding the search index, rows are streamed rather than collected
+  public void forEachCourse(Consumer<CourseSummary> consumer) {
+    entityManager.createQuery("select new com.example.graphapi.model.CourseSummary("
+        + "m.id, m.trainingID, m.trainingName, m.category, m.trainingTopic, m.duration, m.trainingContentPath)"
+        + " from TrainingMaster m", CourseSummary.class)
+      .setHint("org.hibernate.fetchSize", 1000)
+      .getResultStream()
+      .forEach(consumer);
+  }
+
+  public void forEachModule(Consumer<ModuleSummary> consumer) {
+    entityManager.createQuery("select new com.example.graphapi.model.ModuleSummary("
+        + "d.id, d.trainingId, d.trainingDetailId, d.moduleName, d.moduleTopic, d.moduleFolder, d.duration,"
+        + " d.modulePath, d.instructorName, d.category, d.trainingTopic)"
+        + " from TrainingDetails d", ModuleSummary.class)
+      .setHint("org.hibernate.fetchSize", 1000)
+      .getResultStream()
+      .forEach(consumer);
+  }
+
+  private static <T> List<T> page(TypedQuery<T> query, Map<String, Object> parameters, int limit) {
+    parameters.forEach(query::setParameter);
+    return query.setMaxResults(limit).getResultList();
+  }
+}
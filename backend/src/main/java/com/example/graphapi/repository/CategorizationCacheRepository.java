@@ -0,0 +1,24 @@
+package com.example.graphapi.repository;
+
+import com.example.graphapi.entity.CategorizationCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface CategorizationCacheRepository extends JpaRepository<CategorizationCacheEntry, String> {
+
+  @Query("select c.itemId from CategorizationCacheEntry c order by c.lastUsedAt asc")
+  List<String> findLeastRecentlyUsedIds(Pageable pageable);
+
+  @Transactional
+  @Modifying
+  @Query("update CategorizationCacheEntry c set c.lastUsedAt = :usedAt where c.itemId in :itemIds")
+  int touch(@Param("itemIds") Collection<String> itemIds, @Param("usedAt") Instant usedAt);
+}
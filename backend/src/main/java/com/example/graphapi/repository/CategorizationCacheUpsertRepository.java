@@ -0,0 +1,110 @@
+package com.example.graphapi.repository;
+
+import com.example.graphapi.entity.CategorizationCacheEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Batched writes for Categorization_Cache. The entity has an assigned id, so saveAll would
+ * merge and SELECT every row first; here rows are matched on Item_ID with INSERT ... ON
+ * CONFLICT (MERGE ... KEY on H2) and sent as one JDBC batch.
+ */
+@Repository
+public class CategorizationCacheUpsertRepository {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${spring.jpa.properties.hibernate.default_schema:}")
+  private String schema;
+
+  @Value("${persistence.batch-size:500}")
+  private int batchSize;
+
+  private volatile Boolean h2;
+
+  @Transactional
+  public void upsert(Collection<CategorizationCacheEntry> entries) {
+    // Postgres rejects a batch that touches the same key twice, the last row wins
+    Map<String, CategorizationCacheEntry> byItemId = new LinkedHashMap<>();
+    entries.forEach(entry -> byItemId.put(entry.getItemId(), entry));
+
+    String columns = " (item_id, content_tag, category, training_topic, module_topic, trainer_name, module_duration,"
+      + " last_used_at)";
+    String sql = isH2()
+      ? "merge into " + table("categorization_cache") + columns + " key (item_id) values (?, ?, ?, ?, ?, ?, ?, ?)"
+      : "insert into " + table("categorization_cache") + columns
+      + " values (?, ?, ?, ?, ?, ?, ?, ?)"
+      + " on conflict (item_id) do update set"
+      + " content_tag = excluded.content_tag,"
+      + " category = excluded.category,"
+      + " training_topic = excluded.training_topic,"
+      + " module_topic = excluded.module_topic,"
+      + " trainer_name = excluded.trainer_name,"
+      + " module_duration = excluded.module_duration,"
+      + " last_used_at = excluded.last_used_at";
+    List<CategorizationCacheEntry> rows = new ArrayList<>(byItemId.values());
+    timed("upsert-categorizations", rows.size(), () -> jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, entry) -> {
+      ps.setString(1, entry.getItemId());
+      ps.setString(2, entry.getContentTag());
+      ps.setString(3, entry.getCategory());
+      ps.setString(4, entry.getTrainingTopic());
+      ps.setString(5, entry.getModuleTopic());
+      ps.setString(6, entry.getInstructorName());
+      if (entry.getDuration() != null) {
+        ps.setDouble(7, entry.getDuration());
+      } else {
+        ps.setNull(7, Types.DOUBLE);
+      }
+      ps.setObject(8, entry.getLastUsedAt().atOffset(ZoneOffset.UTC));
+    }));
+  }
+
+  // Batch write timings, per operation, for the repository.batch.* meters
+  private <T> T timed(String operation, int rows, Supplier<T> write) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "error";
+    try {
+      T result = write.get();
+      outcome = "success";
+      return result;
+    } finally {
+      sample.stop(Timer.builder("repository.batch.writes")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+      meterRegistry.summary("repository.batch.rows", "operation", operation).record(rows);
+    }
+  }
+
+  private boolean isH2() {
+    if (h2 == null) {
+      h2 = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+        "H2".equals(connection.getMetaData().getDatabaseProductName()));
+    }
+    return h2;
+  }
+
+  private String table(String name) {
+    return schema == null || schema.isBlank() ? name : schema + "." + name;
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.graphapi.repository;
+
+import com.example.graphapi.entity.DriveDeltaToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface DriveDeltaTokenRepository extends JpaRepository<DriveDeltaToken, Long> {
+
+  Optional<DriveDeltaToken> findByDriveIdAndRootItemId(String driveId, String rootItemId);
+}
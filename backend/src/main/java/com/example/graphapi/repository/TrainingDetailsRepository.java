@@ -2,5 +2,24 @@ package com.example.graphapi.repository;
 
 import com.example.graphapi.entity.TrainingDetails;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface TrainingDetailsRepository extends JpaRepository<TrainingDetails, Long> {}
+import java.util.List;
+
+public interface TrainingDetailsRepository extends JpaRepository<TrainingDetails, Long> {
+
+  List<TrainingDetails> findByTrainingDetailId(String trainingDetailId);
+
+  List<TrainingDetails> findByTrainingId(String trainingId);
+
+  @Query("select coalesce(sum(d.duration), 0) from TrainingDetails d where d.trainingId = :trainingId")
+  Double sumDurationByTrainingId(@Param("trainingId") String trainingId);
+
+  @Transactional
+  long deleteByTrainingDetailId(String trainingDetailId);
+
+  @Transactional
+  long deleteByTrainingId(String trainingId);
+}
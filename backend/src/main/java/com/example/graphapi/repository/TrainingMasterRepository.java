@@ -2,5 +2,14 @@ package com.example.graphapi.repository;
 
 import com.example.graphapi.entity.TrainingMaster;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface TrainingMasterRepository extends JpaRepository<TrainingMaster, Long> {}
+import java.util.Optional;
+
+public interface TrainingMasterRepository extends JpaRepository<TrainingMaster, Long> {
+
+  Optional<TrainingMaster> findFirstByTrainingID(String trainingID);
+
+  @Transactional
+  long deleteByTrainingID(String trainingID);
+}
@@ -0,0 +1,242 @@
+package com.example.graphapi.repository;
+
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.entity.TrainingMaster;
+import com.example.graphapi.model.CourseSummary;
+import com.example.graphapi.model.ModuleSummary;
+import com.example.graphapi.service.CatalogSearchIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Array;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Idempotent writes for the training tables. Rows are matched on Training_ID and
+ * Training_Detail_ID with INSERT ... ON CONFLICT and sent as JDBC batches, so re-ingesting a
+ * drive updates rows in place instead of duplicating them. The search index follows the
+ * written rows, with their database ids, once the transaction has committed.
+ */
+@Repository
+public class TrainingUpsertRepository {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  // Every ingestion write goes through here, so this is where the search index follows the tables
+  @Autowired
+  private CatalogSearchIndex catalogSearchIndex;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${spring.jpa.properties.hibernate.default_schema:}")
+  private String schema;
+
+  @Value("${persistence.batch-size:500}")
+  private int batchSize;
+
+  private volatile Boolean h2;
+
+  @Transactional
+  public void upsertMasters(Collection<TrainingMaster> masters) {
+    // Postgres rejects a batch that touches the same key twice, the last row wins
+    Map<String, TrainingMaster> byTrainingId = new LinkedHashMap<>();
+    masters.forEach(master -> byTrainingId.put(master.getTrainingID(), master));
+
+    String columns = " (training_id, training_name, training_category, training_topic, training_duration,"
+      + " training_content_path)";
+    String sql = isH2()
+      ? "merge into " + table("training_master") + columns + " key (training_id) values (?, ?, ?, ?, ?, ?)"
+      : "insert into " + table("training_master") + columns
+      + " values (?, ?, ?, ?, ?, ?)"
+      + " on conflict (training_id) do update set"
+      + " training_name = excluded.training_name,"
+      + " training_category = excluded.training_category,"
+      + " training_topic = excluded.training_topic,"
+      + " training_duration = excluded.training_duration,"
+      + " training_content_path = excluded.training_content_path";
+    List<TrainingMaster> rows = new ArrayList<>(byTrainingId.values());
+    timed("upsert-masters", rows.size(), () -> jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, master) -> {
+      ps.setString(1, master.getTrainingID());
+      ps.setString(2, master.getTrainingName());
+      ps.setString(3, master.getCategory());
+      ps.setString(4, master.getTrainingTopic());
+      ps.setLong(5, master.getDuration());
+      ps.setString(6, master.getTrainingContentPath());
+    }));
+    if (catalogSearchIndex.isEnabled()) {
+      Map<String, Long> ids = findIds("training_master", "training_id", byTrainingId.keySet());
+      List<CourseSummary> courses = rows.stream()
+        .map(master -> new CourseSummary(ids.get(master.getTrainingID()), master.getTrainingID(),
+          master.getTrainingName(), master.getCategory(), master.getTrainingTopic(), master.getDuration(),
+          master.getTrainingContentPath()))
+        .toList();
+      afterCommit(() -> catalogSearchIndex.indexCourses(courses));
+    }
+  }
+
+  @Transactional
+  public void upsertDetails(Collection<TrainingDetails> details) {
+    Map<String, TrainingDetails> byDetailId = new LinkedHashMap<>();
+    details.forEach(detail -> byDetailId.put(detail.getTrainingDetailId(), detail));
+
+    String columns = " (training_id, training_detail_id, module_name, module_topic, module_duration, module_path,"
+      + " trainer_name, category, training_topic, module_folder)";
+    String sql = isH2()
+      ? "merge into " + table("training_details") + columns
+      + " key (training_detail_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+      : "insert into " + table("training_details") + columns
+      + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+      + " on conflict (training_detail_id) do update set"
+      + " training_id = excluded.training_id,"
+      + " module_name = excluded.module_name,"
+      + " module_topic = excluded.module_topic,"
+      + " module_duration = excluded.module_duration,"
+      + " module_path = excluded.module_path,"
+      + " trainer_name = excluded.trainer_name,"
+      + " category = excluded.category,"
+      + " training_topic = excluded.training_topic,"
+      + " module_folder = excluded.module_folder";
+    List<TrainingDetails> rows = new ArrayList<>(byDetailId.values());
+    timed("upsert-details", rows.size(), () -> jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, detail) -> {
+      ps.setString(1, detail.getTrainingId());
+      ps.setString(2, detail.getTrainingDetailId());
+      ps.setString(3, detail.getModuleName());
+      ps.setString(4, detail.getModuleTopic());
+      if (detail.getDuration() != null) {
+        ps.setDouble(5, detail.getDuration());
+      } else {
+        ps.setNull(5, Types.DOUBLE);
+      }
+      ps.setString(6, detail.getModulePath());
+      ps.setString(7, detail.getInstructorName());
+      ps.setString(8, detail.getCategory());
+      ps.setString(9, detail.getTrainingTopic());
+      ps.setString(10, detail.getModuleFolder());
+    }));
+    if (catalogSearchIndex.isEnabled()) {
+      Map<String, Long> ids = findIds("training_details", "training_detail_id", byDetailId.keySet());
+      List<ModuleSummary> modules = rows.stream()
+        .map(detail -> new ModuleSummary(ids.get(detail.getTrainingDetailId()), detail.getTrainingId(),
+          detail.getTrainingDetailId(), detail.getModuleName(), detail.getModuleTopic(), detail.getModuleFolder(),
+          detail.getDuration(), detail.getModulePath(), detail.getInstructorName(), detail.getCategory(),
+          detail.getTrainingTopic()))
+        .toList();
+      afterCommit(() -> catalogSearchIndex.indexModules(modules));
+    }
+  }
+
+  // One transaction per flush, so a failure never leaves a training with half of its modules written
+  @Transactional
+  public void writeTrainings(Collection<TrainingMaster> masters, Collection<TrainingDetails> details) {
+    upsertMasters(masters);
+    upsertDetails(details);
+    deleteDetailsNotIn(
+      masters.stream().map(TrainingMaster::getTrainingID).toList(),
+      details.stream().map(TrainingDetails::getTrainingDetailId).toList());
+  }
+
+  // Removes modules of the given trainings that are no longer in the drive, in one statement
+  @Transactional
+  public int deleteDetailsNotIn(Collection<String> trainingIds, Collection<String> keepDetailIds) {
+    if (trainingIds.isEmpty()) {
+      return 0;
+    }
+    String sql = "delete from " + table("training_details")
+      + " where training_id = any (?) and not (training_detail_id = any (?))";
+    int deleted = timed("delete-details", trainingIds.size(), () -> jdbcTemplate.update(connection -> {
+      Array trainings = connection.createArrayOf("varchar", trainingIds.toArray());
+      Array keep = connection.createArrayOf("varchar", keepDetailIds.toArray());
+      var ps = connection.prepareStatement(sql);
+      ps.setArray(1, trainings);
+      ps.setArray(2, keep);
+      return ps;
+    }));
+    if (deleted > 0) {
+      afterCommit(() -> catalogSearchIndex.retainModules(trainingIds, keepDetailIds));
+    }
+    return deleted;
+  }
+
+  // Ids of the rows just written, so indexed documents carry the same ids as a rebuild from the tables
+  private Map<String, Long> findIds(String tableName, String keyColumn, Collection<String> keys) {
+    Map<String, Long> ids = new HashMap<>();
+    if (keys.isEmpty()) {
+      return ids;
+    }
+    String sql = "select " + keyColumn + ", id from " + table(tableName) + " where " + keyColumn + " = any (?)";
+    jdbcTemplate.query(connection -> {
+      var ps = connection.prepareStatement(sql);
+      ps.setArray(1, connection.createArrayOf("varchar", keys.toArray()));
+      return ps;
+    }, rs -> {
+      ids.put(rs.getString(1), rs.getLong(2));
+    });
+    return ids;
+  }
+
+  // Searches must not find rows that are rolled back, so the index is only updated after commit
+  private void afterCommit(Runnable indexUpdate) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      indexUpdate.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        indexUpdate.run();
+      }
+    });
+  }
+
+  // Batch write timings, per operation, for the repository.batch.* meters
+  private <T> T timed(String operation, int rows, Supplier<T> write) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "error";
+    try {
+      T result = write.get();
+      outcome = "success";
+      return result;
+    } finally {
+      sample.stop(Timer.builder("repository.batch.writes")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+      meterRegistry.summary("repository.batch.rows", "operation", operation).record(rows);
+    }
+  }
+
+  // H2 (local runs, benchmarks) has no ON CONFLICT ... DO UPDATE; MERGE ... KEY is its upsert
+  private boolean isH2() {
+    if (h2 == null) {
+      h2 = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+        "H2".equals(connection.getMetaData().getDatabaseProductName()));
+    }
+    return h2;
+  }
+
+  private String table(String name) {
+    return schema == null || schema.isBlank() ? name : schema + "." + name;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+}
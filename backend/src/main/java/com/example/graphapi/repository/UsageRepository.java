@@ -0,0 +1,216 @@
+package com.example.graphapi.repository;
+
+import com.example.graphapi.entity.UsageEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Batched writes and rollup reads for usage tracking. A flush inserts the raw events and adds
+ * the pre-aggregated counters of the batch to Usage_Rollups with INSERT ... ON CONFLICT DO
+ * UPDATE increments, all in one transaction so a failed flush never counts twice. Learners
+ * are recorded once per bucket with ON CONFLICT DO NOTHING and counted from that table. H2,
+ * which has no ON CONFLICT DO UPDATE even in PostgreSQL mode, gets the same increments through
+ * MERGE ... USING and MERGE ... KEY instead.
+ */
+@Repository
+public class UsageRepository {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${spring.jpa.properties.hibernate.default_schema:}")
+  private String schema;
+
+  @Value("${persistence.batch-size:500}")
+  private int batchSize;
+
+  private volatile Boolean h2;
+
+  public record Rollup(String granularity, Instant bucketStart, String trainingId, long launches,
+                       long progressEvents, long completions, double watchSeconds) {}
+
+  public record ActiveLearner(String granularity, Instant bucketStart, String trainingId, String userId) {}
+
+  public record BucketTotals(Instant bucketStart, long launches, long progressEvents, long completions,
+                             double watchSeconds) {}
+
+  public record CourseTotals(String trainingId, long launches, long completions, double watchSeconds) {}
+
+  @Transactional
+  public void write(List<UsageEvent> events, Collection<Rollup> rollups, Collection<ActiveLearner> learners) {
+    String eventsSql = "insert into " + table("usage_events")
+      + " (event_type, training_id, training_detail_id, user_id, watch_seconds, occurred_at, received_at)"
+      + " values (?, ?, ?, ?, ?, ?, ?)";
+    timed("usage-events", events.size(), () -> jdbcTemplate.batchUpdate(eventsSql, events, batchSize, (ps, event) -> {
+      ps.setString(1, event.getEventType());
+      ps.setString(2, event.getTrainingId());
+      ps.setString(3, event.getTrainingDetailId());
+      ps.setString(4, event.getUserId());
+      if (event.getWatchSeconds() != null) {
+        ps.setDouble(5, event.getWatchSeconds());
+      } else {
+        ps.setNull(5, Types.DOUBLE);
+      }
+      ps.setObject(6, utc(event.getOccurredAt()));
+      ps.setObject(7, utc(event.getReceivedAt()));
+    }));
+
+    String rollupsSql = isH2()
+      ? "merge into " + table("usage_rollups") + " r using (values (?, ?, ?, ?, ?, ?, ?))"
+      + " s (granularity, bucket_start, training_id, launches, progress_events, completions, watch_seconds)"
+      + " on r.granularity = s.granularity and r.bucket_start = s.bucket_start and r.training_id = s.training_id"
+      + " when matched then update set"
+      + " launches = r.launches + s.launches,"
+      + " progress_events = r.progress_events + s.progress_events,"
+      + " completions = r.completions + s.completions,"
+      + " watch_seconds = r.watch_seconds + s.watch_seconds"
+      + " when not matched then insert"
+      + " (granularity, bucket_start, training_id, launches, progress_events, completions, watch_seconds)"
+      + " values (s.granularity, s.bucket_start, s.training_id, s.launches, s.progress_events, s.completions,"
+      + " s.watch_seconds)"
+      : "insert into " + table("usage_rollups")
+      + " (granularity, bucket_start, training_id, launches, progress_events, completions, watch_seconds)"
+      + " values (?, ?, ?, ?, ?, ?, ?)"
+      + " on conflict (granularity, bucket_start, training_id) do update set"
+      + " launches = usage_rollups.launches + excluded.launches,"
+      + " progress_events = usage_rollups.progress_events + excluded.progress_events,"
+      + " completions = usage_rollups.completions + excluded.completions,"
+      + " watch_seconds = usage_rollups.watch_seconds + excluded.watch_seconds";
+    List<Rollup> rollupRows = new ArrayList<>(rollups);
+    timed("usage-rollups", rollupRows.size(), () -> jdbcTemplate.batchUpdate(rollupsSql, rollupRows, batchSize,
+      (ps, rollup) -> {
+        ps.setString(1, rollup.granularity());
+        ps.setObject(2, utc(rollup.bucketStart()));
+        ps.setString(3, rollup.trainingId());
+        ps.setLong(4, rollup.launches());
+        ps.setLong(5, rollup.progressEvents());
+        ps.setLong(6, rollup.completions());
+        ps.setDouble(7, rollup.watchSeconds());
+      }));
+
+    String learnersSql = isH2()
+      ? "merge into " + table("usage_active_learners")
+      + " (granularity, bucket_start, training_id, user_id) key (granularity, bucket_start, training_id, user_id)"
+      + " values (?, ?, ?, ?)"
+      : "insert into " + table("usage_active_learners")
+      + " (granularity, bucket_start, training_id, user_id) values (?, ?, ?, ?)"
+      + " on conflict (granularity, bucket_start, training_id, user_id) do nothing";
+    List<ActiveLearner> learnerRows = new ArrayList<>(learners);
+    timed("usage-learners", learnerRows.size(), () -> jdbcTemplate.batchUpdate(learnersSql, learnerRows, batchSize,
+      (ps, learner) -> {
+        ps.setString(1, learner.granularity());
+        ps.setObject(2, utc(learner.bucketStart()));
+        ps.setString(3, learner.trainingId());
+        ps.setString(4, learner.userId());
+      }));
+  }
+
+  // Counters per bucket in [from, to), for one course or summed over all of them
+  public List<BucketTotals> findBucketTotals(String granularity, Instant from, Instant to, String trainingId) {
+    String sql = "select bucket_start, sum(launches), sum(progress_events), sum(completions), sum(watch_seconds)"
+      + " from " + table("usage_rollups")
+      + " where granularity = ? and bucket_start >= ? and bucket_start < ?"
+      + (trainingId != null ? " and training_id = ?" : "")
+      + " group by bucket_start order by bucket_start";
+    List<Object> args = new ArrayList<>(List.of(granularity, utc(from), utc(to)));
+    if (trainingId != null) {
+      args.add(trainingId);
+    }
+    return jdbcTemplate.query(sql, (rs, row) -> new BucketTotals(instant(rs, 1), rs.getLong(2), rs.getLong(3),
+      rs.getLong(4), rs.getDouble(5)), args.toArray());
+  }
+
+  // Distinct learners per bucket; trainingId '*' counts learners across all courses
+  public Map<Instant, Long> countActiveLearners(String granularity, Instant from, Instant to, String trainingId) {
+    String sql = "select bucket_start, count(*) from " + table("usage_active_learners")
+      + " where granularity = ? and training_id = ? and bucket_start >= ? and bucket_start < ?"
+      + " group by bucket_start order by bucket_start";
+    Map<Instant, Long> counts = new LinkedHashMap<>();
+    jdbcTemplate.query(sql, rs -> {
+      counts.put(instant(rs, 1), rs.getLong(2));
+    }, granularity, trainingId, utc(from), utc(to));
+    return counts;
+  }
+
+  public List<CourseTotals> findTopCourses(String granularity, Instant from, Instant to, int limit) {
+    String sql = "select training_id, sum(launches) as launches, sum(completions), sum(watch_seconds)"
+      + " from " + table("usage_rollups")
+      + " where granularity = ? and bucket_start >= ? and bucket_start < ?"
+      + " group by training_id order by launches desc, training_id limit ?";
+    return jdbcTemplate.query(sql, (rs, row) -> new CourseTotals(rs.getString(1), rs.getLong(2), rs.getLong(3),
+      rs.getDouble(4)), granularity, utc(from), utc(to), limit);
+  }
+
+  @Transactional
+  public int deleteRollupsBefore(String granularity, Instant before) {
+    int deleted = jdbcTemplate.update("delete from " + table("usage_rollups")
+      + " where granularity = ? and bucket_start < ?", granularity, utc(before));
+    return deleted + jdbcTemplate.update("delete from " + table("usage_active_learners")
+      + " where granularity = ? and bucket_start < ?", granularity, utc(before));
+  }
+
+  @Transactional
+  public int deleteEventsBefore(Instant before) {
+    return jdbcTemplate.update("delete from " + table("usage_events") + " where occurred_at < ?", utc(before));
+  }
+
+  // Batch write timings, per operation, for the repository.batch.* meters
+  private <T> T timed(String operation, int rows, Supplier<T> write) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "error";
+    try {
+      T result = write.get();
+      outcome = "success";
+      return result;
+    } finally {
+      sample.stop(Timer.builder("repository.batch.writes")
+        .tag("operation", operation)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+      meterRegistry.summary("repository.batch.rows", "operation", operation).record(rows);
+    }
+  }
+
+  private static OffsetDateTime utc(Instant instant) {
+    return instant.atOffset(ZoneOffset.UTC);
+  }
+
+  private static Instant instant(ResultSet rs, int column) throws SQLException {
+    return rs.getObject(column, OffsetDateTime.class).toInstant();
+  }
+
+  private boolean isH2() {
+    if (h2 == null) {
+      h2 = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+        "H2".equals(connection.getMetaData().getDatabaseProductName()));
+    }
+    return h2;
+  }
+
+  private String table(String name) {
+    return schema == null || schema.isBlank() ? name : schema + "." + name;
+  }
+}
@@ -0,0 +1,304 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.model.GraphFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Categorizes many drive items for one request. Items are deduplicated by id, cached results
+ * are emitted first and the rest are categorized on a shared pool with at most parallelism
+ * calls in flight per request. Each result is handed to the caller's sink as soon as it
+ * completes, on the calling thread, so the sink can write to a response stream.
+ */
+@Service
+public class BulkCategorizationService {
+
+  private static final Logger log = LoggerFactory.getLogger(BulkCategorizationService.class);
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Autowired
+  private TrainingTreeCrawler trainingTreeCrawler;
+
+  @Autowired
+  private CategorizationCache categorizationCache;
+
+  @Autowired
+  private LocalCategorizer localCategorizer;
+
+  @Value("${categorization.bulk.threads:16}")
+  private int threads;
+
+  @Value("${categorization.bulk.queue-capacity:256}")
+  private int queueCapacity;
+
+  @Value("${categorization.bulk.parallelism:8}")
+  private int parallelism;
+
+  @Value("${categorization.bulk.max-items:5000}")
+  private int maxItems;
+
+  @Value("${categorization.bulk.fallback-category:Uncategorized}")
+  private String fallbackCategory;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private ThreadPoolExecutor categorizePool;
+
+  // details is null when categorization failed, error then holds the reason
+  public record CategorizedItem(GraphFile file, TrainingDetails details, boolean cached, String error) {
+
+    public boolean isSuccessful() {
+      return details != null;
+    }
+  }
+
+  @PostConstruct
+  void start() {
+    AtomicInteger counter = new AtomicInteger();
+    // CallerRuns keeps a saturated pool from failing a half-streamed response
+    categorizePool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+        Thread thread = new Thread(runnable, "bulk-categorize-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  @PreDestroy
+  void stop() {
+    categorizePool.shutdownNow();
+  }
+
+  // Selected folders are expanded to the files below them, down to ingestion.max-depth
+  public List<GraphFile> resolveDriveItems(String accessToken, String driveId, List<String> itemIds) {
+    Map<String, GraphFile> files = new LinkedHashMap<>();
+    for (GraphFile item : graphApiService.getDriveItems(accessToken, driveId, itemIds)) {
+      if (!item.getIsFolder()) {
+        files.putIfAbsent(item.getId(), item);
+        continue;
+      }
+      trainingTreeCrawler.crawl(item, null,
+          folders -> graphApiService.getChildrenOfFolders(accessToken, driveId, folders, null))
+        .forEach(crawled -> files.putIfAbsent(crawled.file().getId(), crawled.file()));
+      checkLimit(files.size());
+    }
+    return new ArrayList<>(files.values());
+  }
+
+  public List<GraphFile> parseDocuments(String documentsJson) {
+    try {
+      Map<String, GraphFile> files = new LinkedHashMap<>();
+      for (GraphFile file : graphApiService.parseDriveItems(objectMapper.readTree(documentsJson))) {
+        if (!file.getIsFolder() && (file.getId() != null || file.getName() != null)) {
+          files.putIfAbsent(file.getId() != null ? file.getId() : file.getName(), file);
+        }
+      }
+      checkLimit(files.size());
+      return new ArrayList<>(files.values());
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalArgumentException("documentsJson is not valid JSON: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Categorizes the files and passes every result to sink as it completes. Without an access
+   * token, or in local categorizer mode, files are categorized by name in-process. Tokenless
+   * requests bypass the categorization cache in both directions: ingestion trusts its entries
+   * as results of the configured categorizer. Returns the results in completion order.
+   */
+  public List<CategorizedItem> categorize(String accessToken, String driveId, List<GraphFile> files,
+                                          Consumer<CategorizedItem> sink) {
+    List<CategorizedItem> results = new ArrayList<>(files.size());
+    Consumer<CategorizedItem> emit = item -> {
+      results.add(item);
+      sink.accept(item);
+    };
+
+    boolean useCache = accessToken != null;
+    List<GraphFile> cacheable = files.stream().filter(file -> file.getId() != null).toList();
+    Map<String, TrainingDetails> cached = useCache ? categorizationCache.lookup(cacheable) : Map.of();
+    List<GraphFile> uncached = new ArrayList<>(files.size() - cached.size());
+    for (GraphFile file : files) {
+      TrainingDetails hit = file.getId() != null ? cached.get(file.getId()) : null;
+      if (hit != null) {
+        emit.accept(new CategorizedItem(file, hit, true, null));
+      } else {
+        uncached.add(file);
+      }
+    }
+
+    List<CategorizedItem> fresh = accessToken == null || localCategorizer.isEnabled()
+      ? categorizeLocally(uncached, emit)
+      : categorizeRemotely(accessToken, driveId, uncached, emit);
+    if (!useCache) {
+      return results;
+    }
+
+    List<GraphFile> categorizedFiles = new ArrayList<>();
+    List<TrainingDetails> categorized = new ArrayList<>();
+    for (CategorizedItem item : fresh) {
+      if (item.isSuccessful() && item.file().getId() != null) {
+        categorizedFiles.add(item.file());
+        categorized.add(item.details());
+      }
+    }
+    categorizationCache.store(categorizedFiles, categorized);
+    return results;
+  }
+
+  private List<CategorizedItem> categorizeLocally(List<GraphFile> files, Consumer<CategorizedItem> emit) {
+    List<CategorizedItem> items = new ArrayList<>(files.size());
+    int batchSize = localCategorizer.getBatchSize();
+    for (int from = 0; from < files.size(); from += batchSize) {
+      List<GraphFile> batch = files.subList(from, Math.min(from + batchSize, files.size()));
+      List<TrainingDetails> categorized = localCategorizer.categorize(batch.stream()
+        .map(file -> new LocalCategorizer.Input(file.getName(), file.getFolderName(), null))
+        .toList());
+      for (int i = 0; i < batch.size(); i++) {
+        CategorizedItem item = new CategorizedItem(batch.get(i), categorized.get(i), false, null);
+        items.add(item);
+        emit.accept(item);
+      }
+    }
+    return items;
+  }
+
+  // Keeps at most parallelism calls in flight so one large selection cannot occupy the whole pool
+  private List<CategorizedItem> categorizeRemotely(String accessToken, String driveId, List<GraphFile> files,
+                                                   Consumer<CategorizedItem> emit) {
+    List<CategorizedItem> items = new ArrayList<>(files.size());
+    ExecutorCompletionService<CategorizedItem> completion = new ExecutorCompletionService<>(categorizePool);
+    List<Future<CategorizedItem>> futures = new ArrayList<>(files.size());
+    int next = 0;
+    int inFlight = 0;
+    try {
+      while (next < files.size() || inFlight > 0) {
+        while (inFlight < parallelism && next < files.size()) {
+          GraphFile file = files.get(next++);
+          futures.add(completion.submit(() -> categorizeOne(accessToken, driveId, file)));
+          inFlight++;
+        }
+        CategorizedItem item = completion.take().get();
+        inFlight--;
+        items.add(item);
+        emit.accept(item);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Bulk categorization was interrupted");
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Bulk categorization failed: " + e.getCause().getMessage());
+    } finally {
+      // Stops the remaining work when the sink gave up, e.g. because the client disconnected
+      futures.forEach(future -> future.cancel(true));
+    }
+    return items;
+  }
+
+  private CategorizedItem categorizeOne(String accessToken, String driveId, GraphFile file) {
+    try {
+      TrainingDetails details = graphApiService.getCategoryFromFileForTrainingDetails(
+        file.getName(), driveId, file.getId(), accessToken);
+      if (details == null) {
+        return new CategorizedItem(file, null, false, "Categorizer returned no result");
+      }
+      return new CategorizedItem(file, details, false, null);
+    } catch (RuntimeException e) {
+      log.warn("Failed to categorize {}: {}", file.getName(), e.getMessage());
+      return new CategorizedItem(file, null, false, e.getMessage());
+    }
+  }
+
+  // Shape the frontend renders: totalFiles plus files grouped per category
+  public Map<String, Object> summarize(List<CategorizedItem> items, boolean includeFiles) {
+    Map<String, Map<String, Object>> categories = new LinkedHashMap<>();
+    List<Map<String, Object>> failures = new ArrayList<>();
+    int cachedCount = 0;
+    for (CategorizedItem item : items) {
+      if (!item.isSuccessful()) {
+        failures.add(toMap(item));
+        continue;
+      }
+      if (item.cached()) {
+        cachedCount++;
+      }
+      String category = item.details().getCategory() != null ? item.details().getCategory() : fallbackCategory;
+      Map<String, Object> group = categories.computeIfAbsent(category, key -> {
+        Map<String, Object> created = new LinkedHashMap<>();
+        created.put("count", 0);
+        if (includeFiles) {
+          created.put("files", new ArrayList<Map<String, Object>>());
+        }
+        return created;
+      });
+      group.put("count", (Integer) group.get("count") + 1);
+      if (includeFiles) {
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> groupFiles = (List<Map<String, Object>>) group.get("files");
+        groupFiles.add(toMap(item));
+      }
+    }
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("totalFiles", items.size());
+    summary.put("categorized", items.size() - failures.size());
+    summary.put("cached", cachedCount);
+    summary.put("failed", failures.size());
+    summary.put("categories", categories);
+    if (!failures.isEmpty()) {
+      summary.put("errors", failures);
+    }
+    return summary;
+  }
+
+  public Map<String, Object> toMap(CategorizedItem item) {
+    GraphFile file = item.file();
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("id", file.getId());
+    map.put("name", file.getName());
+    map.put("size", file.getSize());
+    map.put("lastModifiedDateTime", file.getLastModifiedDateTime());
+    map.put("webUrl", file.getWebUrl());
+    map.put("folderName", file.getFolderName());
+    if (item.isSuccessful()) {
+      map.put("category", item.details().getCategory());
+      map.put("trainingTopic", item.details().getTrainingTopic());
+      map.put("moduleTopic", item.details().getModuleTopic());
+      map.put("cached", item.cached());
+      map.put("fallback", item.details().isFallback());
+    } else {
+      map.put("error", item.error());
+    }
+    return map;
+  }
+
+  private void checkLimit(int count) {
+    if (count > maxItems) {
+      throw new IllegalArgumentException("Selection contains more than " + maxItems + " files");
+    }
+  }
+}
@@ -0,0 +1,380 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.CourseSummary;
+import com.example.graphapi.model.ModuleSummary;
+import com.example.graphapi.model.SearchHit;
+import com.example.graphapi.repository.CatalogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over course names and topics and module names, topics and trainers.
+ * Every query token is matched as a prefix against a sorted term dictionary, so "jav prog"
+ * finds "Java Programming"; whole-word matches score higher than prefix matches, rare terms
+ * higher than common ones (idf) and names higher than topics. A document must match every
+ * query token.
+ *
+ * Documents get a new number whenever they change; postings are append-only and the old
+ * number is just marked dead, so updates never rewrite posting lists. Once a quarter of the
+ * documents are dead the index is compacted. The index is built from the database when the
+ * application starts and kept current by the ingestion write paths.
+ */
+@Component
+public class CatalogSearchIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+  private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern CAMEL_CASE = Pattern.compile("(?<=\\p{Ll})(?=\\p{Lu})");
+
+  private static final float NAME_WEIGHT = 3f;
+  private static final float TRAINER_WEIGHT = 2f;
+  private static final float TOPIC_WEIGHT = 1.5f;
+  private static final float PREFIX_FACTOR = 0.5f;
+
+  @Autowired
+  private CatalogRepository catalogRepository;
+
+  @Value("${search.enabled:true}")
+  private boolean enabled;
+
+  @Value("${search.max-prefix-terms:256}")
+  private int maxPrefixTerms;
+
+  @Value("${search.max-results:100}")
+  private int maxResults;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final TreeMap<String, Postings> terms = new TreeMap<>();
+  private final List<Doc> docs = new ArrayList<>();
+  private final Map<String, Integer> docByKey = new HashMap<>();
+  private final Map<String, Set<String>> modulesByTraining = new HashMap<>();
+  private int deadDocs;
+  private volatile boolean ready;
+  private volatile long lastBuildMillis;
+
+  private record Doc(String key, String type, Object item) {}
+
+  // Append-only list of (doc, weight) pairs in ascending doc order
+  private static final class Postings {
+    private int[] docs = new int[4];
+    private float[] weights = new float[4];
+    private int size;
+
+    void add(int doc, float weight) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+        weights = Arrays.copyOf(weights, size * 2);
+      }
+      docs[size] = doc;
+      weights[size++] = weight;
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrap() {
+    if (!enabled) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        rebuild();
+      } catch (RuntimeException e) {
+        log.warn("Failed to build the catalog search index: {}", e.getMessage());
+      }
+    }, "catalog-search-bootstrap");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  // Holds the write lock while reading both tables so no ingestion write can interleave with the scan
+  public void rebuild() {
+    long start = System.nanoTime();
+    lock.writeLock().lock();
+    try {
+      clear();
+      catalogRepository.forEachCourse(course -> add(new Doc(courseKey(course.trainingId()), "course", course)));
+      catalogRepository.forEachModule(module -> add(new Doc(moduleKey(module.moduleId()), "module", module)));
+      ready = true;
+      lastBuildMillis = (System.nanoTime() - start) / 1_000_000;
+      log.info("Catalog search index built with {} documents and {} terms in {} ms", docByKey.size(), terms.size(),
+        lastBuildMillis);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void indexCourses(Collection<CourseSummary> courses) {
+    if (!enabled || courses.isEmpty()) {
+      return;
+    }
+    write(() -> courses.forEach(course -> put(new Doc(courseKey(course.trainingId()), "course", course))));
+  }
+
+  public void indexModules(Collection<ModuleSummary> modules) {
+    if (!enabled || modules.isEmpty()) {
+      return;
+    }
+    write(() -> modules.forEach(module -> put(new Doc(moduleKey(module.moduleId()), "module", module))));
+  }
+
+  // Drops the modules of the given trainings that are not in keepDetailIds
+  public void retainModules(Collection<String> trainingIds, Collection<String> keepDetailIds) {
+    if (!enabled || trainingIds.isEmpty()) {
+      return;
+    }
+    Set<String> keep = new HashSet<>(keepDetailIds);
+    write(() -> {
+      for (String trainingId : trainingIds) {
+        Set<String> modules = modulesByTraining.get(trainingId);
+        if (modules != null) {
+          new ArrayList<>(modules).stream().filter(id -> !keep.contains(id)).forEach(id -> remove(moduleKey(id)));
+        }
+      }
+    });
+  }
+
+  public void removeCourse(String trainingId) {
+    if (!enabled) {
+      return;
+    }
+    write(() -> {
+      remove(courseKey(trainingId));
+      Set<String> modules = modulesByTraining.get(trainingId);
+      if (modules != null) {
+        new ArrayList<>(modules).forEach(id -> remove(moduleKey(id)));
+      }
+    });
+  }
+
+  public void removeModule(String trainingDetailId) {
+    if (!enabled) {
+      return;
+    }
+    write(() -> remove(moduleKey(trainingDetailId)));
+  }
+
+  /**
+   * Ranked documents matching all tokens of the query; type is "course", "module" or null
+   * for both. Typeahead uses the same path with a small limit.
+   */
+  public List<SearchHit> search(String query, String type, int limit) {
+    List<String> queryTokens = tokenize(query);
+    if (queryTokens.isEmpty()) {
+      return List.of();
+    }
+    int maxHits = Math.min(Math.max(limit, 1), maxResults);
+    lock.readLock().lock();
+    try {
+      int docCount = docs.size();
+      int liveDocs = docCount - deadDocs;
+      float[] scores = new float[docCount];
+      // Number of query tokens each document matched so far, a document is dropped once it misses one
+      byte[] matched = new byte[docCount];
+      for (int i = 0; i < queryTokens.size() && i < Byte.MAX_VALUE; i++) {
+        String token = queryTokens.get(i);
+        for (Map.Entry<String, Postings> term : expand(token)) {
+          Postings postings = term.getValue();
+          float factor = (float) Math.log(1 + (double) liveDocs / postings.size)
+            * (term.getKey().equals(token) ? 1f : PREFIX_FACTOR);
+          for (int p = 0; p < postings.size; p++) {
+            int doc = postings.docs[p];
+            if (matched[doc] == i) {
+              matched[doc] = (byte) (i + 1);
+              scores[doc] += postings.weights[p] * factor;
+            }
+          }
+        }
+      }
+
+      int required = Math.min(queryTokens.size(), Byte.MAX_VALUE);
+      PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingDouble(doc -> scores[doc]));
+      for (int doc = 0; doc < docCount; doc++) {
+        if (matched[doc] != required) {
+          continue;
+        }
+        Doc candidate = docs.get(doc);
+        if (candidate == null || (type != null && !type.equals(candidate.type()))) {
+          continue;
+        }
+        if (top.size() < maxHits) {
+          top.add(doc);
+        } else if (scores[doc] > scores[top.peek()]) {
+          top.poll();
+          top.add(doc);
+        }
+      }
+      List<SearchHit> hits = new ArrayList<>(top.size());
+      while (!top.isEmpty()) {
+        int doc = top.poll();
+        Doc hit = docs.get(doc);
+        hits.add(new SearchHit(hit.type(), Math.round(scores[doc] * 1000) / 1000.0, hit.item()));
+      }
+      Collections.reverse(hits);
+      return hits;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Map<String, Object> getStats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    lock.readLock().lock();
+    try {
+      stats.put("enabled", enabled);
+      stats.put("ready", ready);
+      stats.put("documents", docByKey.size());
+      stats.put("deadDocuments", deadDocs);
+      stats.put("terms", terms.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+    stats.put("lastBuildMillis", lastBuildMillis);
+    return stats;
+  }
+
+  // The exact term first, then up to max-prefix-terms of the most frequent terms starting with the token
+  private List<Map.Entry<String, Postings>> expand(String token) {
+    List<Map.Entry<String, Postings>> expansions = new ArrayList<>();
+    Postings exact = terms.get(token);
+    if (exact != null) {
+      expansions.add(Map.entry(token, exact));
+    }
+    PriorityQueue<Map.Entry<String, Postings>> frequent =
+      new PriorityQueue<>(Comparator.comparingInt(entry -> entry.getValue().size));
+    for (Map.Entry<String, Postings> entry : terms.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+      if (frequent.size() < maxPrefixTerms) {
+        frequent.add(entry);
+      } else if (entry.getValue().size > frequent.peek().getValue().size) {
+        frequent.poll();
+        frequent.add(entry);
+      }
+    }
+    expansions.addAll(frequent);
+    return expansions;
+  }
+
+  private void write(Runnable update) {
+    lock.writeLock().lock();
+    try {
+      update.run();
+      if (deadDocs > 1000 && deadDocs * 4 > docs.size()) {
+        compact();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void put(Doc doc) {
+    remove(doc.key());
+    add(doc);
+  }
+
+  private void add(Doc doc) {
+    int number = docs.size();
+    docs.add(doc);
+    docByKey.put(doc.key(), number);
+
+    Map<String, Float> weights = new HashMap<>();
+    if (doc.item() instanceof CourseSummary course) {
+      addField(weights, course.trainingName(), NAME_WEIGHT);
+      addField(weights, course.trainingTopic(), TOPIC_WEIGHT);
+    } else if (doc.item() instanceof ModuleSummary module) {
+      addField(weights, module.moduleName(), NAME_WEIGHT);
+      addField(weights, module.trainerName(), TRAINER_WEIGHT);
+      addField(weights, module.moduleTopic(), TOPIC_WEIGHT);
+      addField(weights, module.trainingTopic(), TOPIC_WEIGHT);
+      if (module.trainingId() != null) {
+        modulesByTraining.computeIfAbsent(module.trainingId(), key -> new HashSet<>()).add(module.moduleId());
+      }
+    }
+    weights.forEach((term, weight) -> terms.computeIfAbsent(term, key -> new Postings()).add(number, weight));
+  }
+
+  private void remove(String key) {
+    Integer number = docByKey.remove(key);
+    if (number == null) {
+      return;
+    }
+    Doc doc = docs.set(number, null);
+    deadDocs++;
+    if (doc.item() instanceof ModuleSummary module && module.trainingId() != null) {
+      Set<String> modules = modulesByTraining.get(module.trainingId());
+      if (modules != null) {
+        modules.remove(module.moduleId());
+        if (modules.isEmpty()) {
+          modulesByTraining.remove(module.trainingId());
+        }
+      }
+    }
+  }
+
+  private void compact() {
+    List<Doc> live = docs.stream().filter(doc -> doc != null).toList();
+    clear();
+    live.forEach(this::add);
+  }
+
+  private void clear() {
+    terms.clear();
+    docs.clear();
+    docByKey.clear();
+    modulesByTraining.clear();
+    deadDocs = 0;
+  }
+
+  // A term's weight is that of the strongest field it occurs in
+  private static void addField(Map<String, Float> weights, String text, float weight) {
+    for (String token : tokenize(text)) {
+      weights.merge(token, weight, Math::max);
+    }
+  }
+
+  private static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null || text.isBlank()) {
+      return tokens;
+    }
+    for (String raw : TOKEN_SPLIT.split(CAMEL_CASE.matcher(text).replaceAll(" "))) {
+      if (!raw.isEmpty()) {
+        tokens.add(raw.toLowerCase(Locale.ROOT));
+      }
+    }
+    return tokens;
+  }
+
+  private static String courseKey(String trainingId) {
+    return "course:" + trainingId;
+  }
+
+  private static String moduleKey(String trainingDetailId) {
+    return "module:" + trainingDetailId;
+  }
+}
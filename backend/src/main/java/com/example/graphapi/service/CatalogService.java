@@ -0,0 +1,96 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.CourseSummary;
+import com.example.graphapi.model.ModuleSummary;
+import com.example.graphapi.repository.CatalogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Course and module listings for the dashboard. Pages carry a nextCursor, the id of their
+ * last row, which the client passes back as after to get the following page; it is null on
+ * the last page. No total count is computed, that would scan the whole filter range.
+ */
+@Service
+public class CatalogService {
+
+  @Autowired
+  private CatalogRepository catalogRepository;
+
+  @Value("${catalog.page-size:50}")
+  private int defaultPageSize;
+
+  @Value("${catalog.max-page-size:200}")
+  private int maxPageSize;
+
+  public Map<String, Object> listCourses(String category, String topic, String trainer, String after, Integer limit) {
+    int pageSize = pageSize(limit);
+    List<CourseSummary> rows = catalogRepository.findCourses(blankToNull(category), blankToNull(topic),
+      blankToNull(trainer), parseCursor(after), pageSize + 1);
+    return page(rows, pageSize, CourseSummary::id);
+  }
+
+  public Map<String, Object> listModules(String trainingId, String category, String topic, String trainer,
+                                         String after, Integer limit) {
+    int pageSize = pageSize(limit);
+    List<ModuleSummary> rows = catalogRepository.findModules(blankToNull(trainingId), blankToNull(category),
+      blankToNull(topic), blankToNull(trainer), parseCursor(after), pageSize + 1);
+    return page(rows, pageSize, ModuleSummary::id);
+  }
+
+  // Course with its totals and the first page of its modules
+  public Optional<Map<String, Object>> getCourse(String trainingId, Integer limit) {
+    return catalogRepository.findCourse(trainingId).map(course -> {
+      Object[] totals = catalogRepository.findModuleTotals(trainingId);
+      Map<String, Object> detail = new LinkedHashMap<>();
+      detail.put("course", course);
+      detail.put("moduleCount", totals[0]);
+      detail.put("moduleDuration", totals[1]);
+      detail.put("modules", listModules(trainingId, null, null, null, null, limit));
+      return detail;
+    });
+  }
+
+  // One extra row is fetched to tell whether another page follows
+  private static <T> Map<String, Object> page(List<T> rows, int pageSize, Function<T, Long> id) {
+    boolean hasMore = rows.size() > pageSize;
+    List<T> items = hasMore ? rows.subList(0, pageSize) : rows;
+    Map<String, Object> page = new LinkedHashMap<>();
+    page.put("items", items);
+    page.put("limit", pageSize);
+    page.put("nextCursor", hasMore ? String.valueOf(id.apply(items.get(items.size() - 1))) : null);
+    return page;
+  }
+
+  private int pageSize(Integer limit) {
+    if (limit == null) {
+      return defaultPageSize;
+    }
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    return Math.min(limit, maxPageSize);
+  }
+
+  private static Long parseCursor(String after) {
+    if (after == null || after.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(after);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + after);
+    }
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+}
@@ -0,0 +1,179 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.CategorizationCacheEntry;
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.repository.CategorizationCacheRepository;
+import com.example.graphapi.repository.CategorizationCacheUpsertRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers classifier results per drive item and content tag (cTag, else eTag), so a file is
+ * only sent to target-url again when its content changed. Entries live in Categorization_Cache
+ * with a small in-memory LRU in front; the table is trimmed to max-entries by last use.
+ */
+@Component
+public class CategorizationCache {
+
+  private static final Logger log = LoggerFactory.getLogger(CategorizationCache.class);
+
+  @Autowired
+  private CategorizationCacheRepository repository;
+
+  @Autowired
+  private CategorizationCacheUpsertRepository upsertRepository;
+
+  @Value("${categorization-cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${categorization-cache.max-entries:100000}")
+  private int maxEntries;
+
+  private final Map<String, CategorizationCacheEntry> memory;
+  private final Set<String> touched = ConcurrentHashMap.newKeySet();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public CategorizationCache(@Value("${categorization-cache.memory-entries:10000}") int memoryEntries) {
+    this.memory = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CategorizationCacheEntry> eldest) {
+        return size() > memoryEntries;
+      }
+    });
+  }
+
+  // One query for all files not already in memory; returns item id -> result for files whose content is unchanged
+  public Map<String, TrainingDetails> lookup(List<GraphFile> files) {
+    Map<String, TrainingDetails> found = new HashMap<>();
+    if (!enabled || files.isEmpty()) {
+      return found;
+    }
+    try {
+      List<String> unknown = new ArrayList<>();
+      for (GraphFile file : files) {
+        CategorizationCacheEntry entry = memory.get(file.getId());
+        if (matches(entry, file)) {
+          found.put(file.getId(), toTrainingDetails(entry));
+        } else if (file.getContentTag() != null) {
+          unknown.add(file.getId());
+        }
+      }
+      if (!unknown.isEmpty()) {
+        Map<String, GraphFile> byId = new HashMap<>();
+        files.forEach(file -> byId.put(file.getId(), file));
+        for (CategorizationCacheEntry entry : repository.findAllById(unknown)) {
+          memory.put(entry.getItemId(), entry);
+          if (matches(entry, byId.get(entry.getItemId()))) {
+            found.put(entry.getItemId(), toTrainingDetails(entry));
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Categorization cache lookup failed, categorizing without it: {}", e.getMessage());
+    }
+    touched.addAll(found.keySet());
+    hits.add(found.size());
+    misses.add(files.size() - found.size());
+    return found;
+  }
+
+  // results[i] belongs to files[i]; files without a content tag or result are not cached
+  public void store(List<GraphFile> files, List<TrainingDetails> results) {
+    if (!enabled) {
+      return;
+    }
+    Instant now = Instant.now();
+    List<CategorizationCacheEntry> entries = new ArrayList<>();
+    for (int i = 0; i < files.size(); i++) {
+      GraphFile file = files.get(i);
+      TrainingDetails result = results.get(i);
+      // Fallback rows are retried on the next run rather than cached
+      if (result == null || result.isFallback() || file.getContentTag() == null) {
+        continue;
+      }
+      CategorizationCacheEntry entry = new CategorizationCacheEntry();
+      entry.setItemId(file.getId());
+      entry.setContentTag(file.getContentTag());
+      entry.setCategory(result.getCategory());
+      entry.setTrainingTopic(result.getTrainingTopic());
+      entry.setModuleTopic(result.getModuleTopic());
+      entry.setInstructorName(result.getInstructorName());
+      entry.setDuration(result.getDuration());
+      entry.setLastUsedAt(now);
+      entries.add(entry);
+    }
+    if (entries.isEmpty()) {
+      return;
+    }
+    try {
+      upsertRepository.upsert(entries);
+      entries.forEach(entry -> memory.put(entry.getItemId(), entry));
+    } catch (RuntimeException e) {
+      log.warn("Failed to store {} categorization results: {}", entries.size(), e.getMessage());
+    }
+  }
+
+  // Last-use updates are written in bulk here instead of on every hit
+  @Scheduled(fixedDelayString = "${categorization-cache.maintenance-interval-ms:60000}")
+  public void maintain() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      if (!touched.isEmpty()) {
+        List<String> itemIds = new ArrayList<>(touched);
+        touched.removeAll(itemIds);
+        repository.touch(itemIds, Instant.now());
+      }
+      long excess = repository.count() - maxEntries;
+      if (excess > 0) {
+        List<String> evicted = repository.findLeastRecentlyUsedIds(PageRequest.of(0, (int) Math.min(excess, 10_000)));
+        repository.deleteAllByIdInBatch(evicted);
+        evicted.forEach(memory::remove);
+        log.info("Evicted {} categorization cache entries", evicted.size());
+      }
+    } catch (RuntimeException e) {
+      log.warn("Categorization cache maintenance failed: {}", e.getMessage());
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  private static boolean matches(CategorizationCacheEntry entry, GraphFile file) {
+    return entry != null && file != null && entry.getContentTag().equals(file.getContentTag());
+  }
+
+  private static TrainingDetails toTrainingDetails(CategorizationCacheEntry entry) {
+    TrainingDetails trainingDetails = new TrainingDetails();
+    trainingDetails.setCategory(entry.getCategory());
+    trainingDetails.setTrainingTopic(entry.getTrainingTopic());
+    trainingDetails.setModuleTopic(entry.getModuleTopic());
+    trainingDetails.setInstructorName(entry.getInstructorName());
+    trainingDetails.setDuration(entry.getDuration());
+    return trainingDetails;
+  }
+}
@@ -0,0 +1,310 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.config.CategorizerResilience;
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.util.JwtClaims;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client for the target-url classifier. In batch mode requests are collected per access token
+ * and sent as one POST to the batch endpoint once max-size files are waiting or linger-ms has
+ * passed since the first one. Files missing from a batch response, or a failed batch, fall back
+ * to the single-file endpoint.
+ *
+ * Batch request:  {"items": [{"driveId": "...", "itemId": "...", "filename": "..."}, ...]}
+ * Batch response: a JSON array (or {"results": [...]}) of TrainingDetails objects, matched by
+ * their "itemId" field, or by position when itemId is absent.
+ */
+@Component
+public class CategorizerClient {
+
+  private static final Logger log = LoggerFactory.getLogger(CategorizerClient.class);
+
+  private final RestTemplate restTemplate;
+  private final CategorizerResilience resilience;
+  private final ObjectMapper objectMapper;
+
+  @Value("${target-url}")
+  private String targetUrl;
+
+  @Value("${categorizer.batch.enabled:false}")
+  private boolean batchEnabled;
+
+  @Value("${categorizer.batch.url:}")
+  private String batchUrl;
+
+  @Value("${categorizer.batch.max-size:32}")
+  private int maxBatchSize;
+
+  @Value("${categorizer.batch.linger-ms:20}")
+  private long lingerMs;
+
+  @Value("${categorizer.batch.concurrency:4}")
+  private int batchConcurrency;
+
+  @Value("${categorizer.resilience.call-timeout-ms:15000}")
+  private long callTimeoutMs;
+
+  @Value("${categorizer.resilience.batch-timeout-ms:60000}")
+  private long batchTimeoutMs;
+
+  @Value("${categorizer.resilience.fallback-category:Uncategorized}")
+  private String fallbackCategory;
+
+  private final Map<String, PendingBatch> openBatches = new HashMap<>();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong requestItems = new AtomicLong();
+  private final AtomicLong requestNanos = new AtomicLong();
+  private final AtomicLong maxRequestNanos = new AtomicLong();
+  private ScheduledExecutorService lingerScheduler;
+  private ExecutorService batchExecutor;
+
+  public CategorizerClient(@Qualifier("categorizerRestTemplate") RestTemplate restTemplate,
+                           CategorizerResilience resilience) {
+    this.restTemplate = restTemplate;
+    this.resilience = resilience;
+    this.objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @PostConstruct
+  void start() {
+    if (batchUrl == null || batchUrl.isBlank()) {
+      batchUrl = targetUrl + "/batch";
+    }
+    if (batchEnabled) {
+      lingerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "categorizer-linger"));
+      batchExecutor = Executors.newFixedThreadPool(batchConcurrency, runnable -> daemon(runnable, "categorizer-batch"));
+      log.info("Categorizer batching enabled: url={}, maxSize={}, lingerMs={}", batchUrl, maxBatchSize, lingerMs);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (lingerScheduler != null) {
+      lingerScheduler.shutdownNow();
+      batchExecutor.shutdownNow();
+    }
+  }
+
+  public boolean isBatchEnabled() {
+    return batchEnabled;
+  }
+
+  public TrainingDetails categorize(String fileName, String driveId, String itemId, String accessToken) {
+    if (!batchEnabled) {
+      return categorizeSingle(fileName, driveId, itemId, accessToken);
+    }
+    try {
+      return submit(fileName, driveId, itemId, accessToken).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  public CompletableFuture<TrainingDetails> submit(String fileName, String driveId, String itemId, String accessToken) {
+    if (!batchEnabled) {
+      try {
+        return CompletableFuture.completedFuture(categorizeSingle(fileName, driveId, itemId, accessToken));
+      } catch (RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+    PendingItem item = new PendingItem(fileName, driveId, itemId, new CompletableFuture<>());
+    String key = JwtClaims.hash(accessToken);
+    PendingBatch full = null;
+    synchronized (openBatches) {
+      PendingBatch batch = openBatches.get(key);
+      if (batch == null) {
+        PendingBatch created = new PendingBatch(key, accessToken);
+        created.lingerTimer = lingerScheduler.schedule(() -> flushExpired(created), lingerMs, TimeUnit.MILLISECONDS);
+        openBatches.put(key, created);
+        batch = created;
+      }
+      batch.items.add(item);
+      if (batch.items.size() >= maxBatchSize) {
+        openBatches.remove(key);
+        batch.lingerTimer.cancel(false);
+        full = batch;
+      }
+    }
+    if (full != null) {
+      dispatch(full);
+    }
+    return item.result;
+  }
+
+  // Never throws for an unavailable or failing categorizer, the file gets a fallback row instead
+  public TrainingDetails categorizeSingle(String fileName, String driveId, String itemId, String accessToken) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(accessToken);
+    Map<String, String> body =  Map.of(
+      "driveId", driveId,
+      "itemId", itemId,
+      "filename",fileName);
+
+    HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(body, headers);
+
+    return resilience.call(() -> {
+      long start = System.nanoTime();
+      ResponseEntity<TrainingDetails> response = restTemplate.postForEntity(targetUrl, requestEntity, TrainingDetails.class);
+      recordRequest(1, System.nanoTime() - start);
+      return response.getBody();
+    }, this::fallback, callTimeoutMs, true);
+  }
+
+  private TrainingDetails fallback() {
+    TrainingDetails details = new TrainingDetails();
+    details.setCategory(fallbackCategory);
+    details.setFallback(true);
+    return details;
+  }
+
+  private void flushExpired(PendingBatch batch) {
+    synchronized (openBatches) {
+      if (!openBatches.remove(batch.key, batch)) {
+        return;
+      }
+    }
+    dispatch(batch);
+  }
+
+  private void dispatch(PendingBatch batch) {
+    batchExecutor.execute(() -> send(batch));
+  }
+
+  private void send(PendingBatch batch) {
+    Map<String, TrainingDetails> results = new HashMap<>();
+    try {
+      results = postBatch(batch);
+    } catch (Exception e) {
+      log.warn("Categorizer batch of {} failed, falling back to single requests: {}", batch.items.size(), e.getMessage());
+    }
+    for (PendingItem item : batch.items) {
+      TrainingDetails result = results.get(item.itemId);
+      if (result != null) {
+        item.result.complete(result);
+        continue;
+      }
+      try {
+        item.result.complete(categorizeSingle(item.fileName, item.driveId, item.itemId, batch.accessToken));
+      } catch (RuntimeException e) {
+        item.result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private Map<String, TrainingDetails> postBatch(PendingBatch batch) throws Exception {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setBearerAuth(batch.accessToken);
+    List<Map<String, String>> items = new ArrayList<>(batch.items.size());
+    for (PendingItem item : batch.items) {
+      items.add(Map.of(
+        "driveId", item.driveId,
+        "itemId", item.itemId,
+        "filename", item.fileName));
+    }
+    HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(Map.of("items", items), headers);
+    ResponseEntity<String> response = resilience.call(() -> {
+      long start = System.nanoTime();
+      ResponseEntity<String> batchResponse = restTemplate.postForEntity(batchUrl, requestEntity, String.class);
+      recordRequest(batch.items.size(), System.nanoTime() - start);
+      return batchResponse;
+    }, () -> null, batchTimeoutMs, false);
+    if (response == null) {
+      throw new IllegalStateException("Categorizer batch endpoint unavailable");
+    }
+
+    JsonNode root = objectMapper.readTree(response.getBody());
+    JsonNode resultNodes = root != null && root.isObject() ? root.path("results") : root;
+    Map<String, TrainingDetails> results = new LinkedHashMap<>();
+    if (resultNodes == null || !resultNodes.isArray()) {
+      return results;
+    }
+    for (int i = 0; i < resultNodes.size(); i++) {
+      JsonNode node = resultNodes.get(i);
+      if (node == null || node.isNull()) {
+        continue;
+      }
+      String itemId = node.path("itemId").asText(null);
+      if (itemId == null && i < batch.items.size()) {
+        itemId = batch.items.get(i).itemId;
+      }
+      if (itemId != null) {
+        results.put(itemId, objectMapper.treeToValue(node, TrainingDetails.class));
+      }
+    }
+    return results;
+  }
+
+  private void recordRequest(int items, long nanos) {
+    requests.incrementAndGet();
+    requestItems.addAndGet(items);
+    requestNanos.addAndGet(nanos);
+    maxRequestNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  // Latency of successful calls to the remote service, one request per batch in batch mode
+  public Map<String, Object> getMetrics() {
+    long count = requests.get();
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("batchEnabled", batchEnabled);
+    metrics.put("requests", count);
+    metrics.put("items", requestItems.get());
+    metrics.put("avgRequestMillis", count == 0 ? 0.0 : requestNanos.get() / 1_000_000.0 / count);
+    metrics.put("maxRequestMillis", maxRequestNanos.get() / 1_000_000.0);
+    metrics.put("avgItemMillis", requestItems.get() == 0 ? 0.0 : requestNanos.get() / 1_000_000.0 / requestItems.get());
+    metrics.put("resilience", resilience.getMetrics());
+    return metrics;
+  }
+
+  private static Thread daemon(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private record PendingItem(String fileName, String driveId, String itemId,
+                             CompletableFuture<TrainingDetails> result) {}
+
+  private static class PendingBatch {
+    private final String key;
+    private final String accessToken;
+    private final List<PendingItem> items = new ArrayList<>();
+    private ScheduledFuture<?> lingerTimer;
+
+    private PendingBatch(String key, String accessToken) {
+      this.key = key;
+      this.accessToken = accessToken;
+    }
+  }
+}
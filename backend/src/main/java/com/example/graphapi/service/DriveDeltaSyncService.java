@@ -0,0 +1,302 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.DriveDeltaToken;
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.entity.TrainingMaster;
+import com.example.graphapi.model.DeltaSyncResult;
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.IngestionStats;
+import com.example.graphapi.repository.DriveDeltaTokenRepository;
+import com.example.graphapi.repository.TrainingDetailsRepository;
+import com.example.graphapi.repository.TrainingMasterRepository;
+import com.example.graphapi.repository.TrainingUpsertRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps Training_Master/Training_Details in step with a drive folder using the Graph delta API.
+ * The first sync crawls the folder; later syncs only apply the items Graph reports as changed.
+ */
+@Service
+public class DriveDeltaSyncService {
+
+  private static final Logger log = LoggerFactory.getLogger(DriveDeltaSyncService.class);
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Autowired
+  private DriveDeltaTokenRepository deltaTokenRepository;
+
+  @Autowired
+  private TrainingMasterRepository trainingMasterRepository;
+
+  @Autowired
+  private TrainingDetailsRepository trainingDetailsRepository;
+
+  @Autowired
+  private TrainingUpsertRepository trainingUpsertRepository;
+
+  @Autowired
+  private TrainingTreeCrawler trainingTreeCrawler;
+
+  @Autowired
+  private CatalogSearchIndex catalogSearchIndex;
+
+  public DeltaSyncResult sync(String accessToken, String driveId, String rootItemId) {
+    long start = System.nanoTime();
+    Optional<DriveDeltaToken> token = deltaTokenRepository.findByDriveIdAndRootItemId(driveId, rootItemId);
+
+    DeltaSyncResult result;
+    if (token.isEmpty()) {
+      result = fullSync(accessToken, driveId, rootItemId);
+    } else {
+      try {
+        result = incrementalSync(accessToken, driveId, rootItemId, token.get().getDeltaLink());
+      } catch (HttpClientErrorException.Gone e) {
+        // Graph expired the token and asks for a resync
+        log.warn("Delta token for drive {} item {} expired, falling back to a full sync", driveId, rootItemId);
+        result = fullSync(accessToken, driveId, rootItemId);
+      }
+    }
+    result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+    log.info("Synced drive {} item {} ({}) in {} ms", driveId, rootItemId, result.getMode(), result.getElapsedMillis());
+    return result;
+  }
+
+  private DeltaSyncResult fullSync(String accessToken, String driveId, String rootItemId) {
+    // Take the token before crawling, so changes made during the crawl are picked up by the next sync
+    String deltaLink = graphApiService.getLatestDeltaLink(accessToken, driveId, rootItemId);
+    IngestionStats stats = graphApiService.processTrainingData(accessToken, driveId, rootItemId);
+    saveDeltaLink(driveId, rootItemId, deltaLink);
+
+    DeltaSyncResult result = new DeltaSyncResult("full");
+    result.setIngestion(stats);
+    return result;
+  }
+
+  private DeltaSyncResult incrementalSync(String accessToken, String driveId, String rootItemId, String deltaLink) {
+    DeltaSyncResult result = new DeltaSyncResult("incremental");
+    IngestionStats stats = new IngestionStats();
+
+    // The same item can show up on several pages, the last state wins
+    Map<String, GraphFile> changes = new LinkedHashMap<>();
+    String nextDeltaLink = graphApiService.forEachDeltaPage(accessToken, deltaLink,
+      page -> page.forEach(item -> changes.put(item.getId(), item)));
+    result.setChangedItems(changes.size());
+
+    String rootId = graphApiService.getDriveItem(accessToken, driveId, rootItemId).getId();
+    Map<String, GraphFile> trainingFolders = new LinkedHashMap<>();
+    List<GraphFile> nestedFolders = new ArrayList<>();
+    List<GraphFile> changedFiles = new ArrayList<>();
+    Set<String> touchedTrainings = new LinkedHashSet<>();
+
+    for (GraphFile item : changes.values()) {
+      if (item.getId().equals(rootId)) {
+        continue;
+      }
+      if (item.getDeleted()) {
+        applyDeletion(item.getId(), result, touchedTrainings);
+      } else if (item.getIsFolder()) {
+        if (rootId.equals(item.getFolderId())) {
+          trainingFolders.put(item.getId(), item);
+        } else {
+          nestedFolders.add(item);
+        }
+      } else {
+        changedFiles.add(item);
+      }
+    }
+
+    // Files count when they sit in a training folder directly under the root, or in one of its subfolders
+    Map<String, Optional<TrainingLocation>> locations = new HashMap<>();
+    trainingFolders.keySet().forEach(id -> locations.put(id, Optional.of(new TrainingLocation(id, ""))));
+    // Keyed by file id; a file in a subfolder belongs to the training folder above it, not to its parent
+    Map<String, TrainingLocation> fileLocations = new LinkedHashMap<>();
+    List<GraphFile> trainingFiles = new ArrayList<>();
+    for (GraphFile file : changedFiles) {
+      locate(accessToken, driveId, rootId, file.getFolderId(), changes, locations, 1).ifPresent(location -> {
+        fileLocations.put(file.getId(), location);
+        trainingFiles.add(file);
+      });
+    }
+
+    // A renamed or moved subfolder changes the module folder of everything below it, so its training is re-crawled
+    Set<String> recrawlTrainings = new LinkedHashSet<>();
+    for (GraphFile folder : nestedFolders) {
+      locate(accessToken, driveId, rootId, folder.getId(), changes, locations, 0)
+        .ifPresent(location -> recrawlTrainings.add(location.trainingId()));
+    }
+
+    // New training folders are ingested whole, their files need no separate pass
+    Set<String> newTrainings = new LinkedHashSet<>();
+    for (GraphFile folder : trainingFolders.values()) {
+      Optional<TrainingMaster> existing = trainingMasterRepository.findFirstByTrainingID(folder.getId());
+      if (existing.isPresent()) {
+        TrainingMaster trainingMaster = existing.get();
+        trainingMaster.setTrainingName(folder.getName());
+        trainingMaster.setTrainingContentPath(folder.getWebUrl());
+        trainingUpsertRepository.upsertMasters(List.of(trainingMaster));
+        result.setUpdatedTrainings(result.getUpdatedTrainings() + 1);
+      } else {
+        graphApiService.processTrainingFolder(accessToken, driveId, folder, stats);
+        newTrainings.add(folder.getId());
+        result.setAddedTrainings(result.getAddedTrainings() + 1);
+      }
+    }
+    recrawlTrainings.removeAll(newTrainings);
+    for (String trainingId : recrawlTrainings) {
+      GraphFile folder = trainingFolders.containsKey(trainingId)
+        ? trainingFolders.get(trainingId)
+        : graphApiService.getDriveItem(accessToken, driveId, trainingId);
+      graphApiService.processTrainingFolder(accessToken, driveId, folder, stats);
+      if (!trainingFolders.containsKey(trainingId)) {
+        result.setUpdatedTrainings(result.getUpdatedTrainings() + 1);
+      }
+    }
+    newTrainings.addAll(recrawlTrainings);
+
+    // Files of new and re-crawled trainings were written by the crawl already
+    List<GraphFile> filesToCategorize = trainingFiles.stream()
+      .filter(file -> !newTrainings.contains(fileLocations.get(file.getId()).trainingId()))
+      .toList();
+    List<TrainingDetails> categorized = new ArrayList<>();
+    filesToCategorize.stream()
+      .collect(Collectors.groupingBy(file -> fileLocations.get(file.getId()).trainingId(), LinkedHashMap::new,
+        Collectors.toList()))
+      .forEach((trainingId, files) -> categorized.addAll(
+        graphApiService.categorizeTrainingFiles(accessToken, driveId, trainingId, files, stats)));
+    List<TrainingDetails> upserts = new ArrayList<>();
+    for (TrainingDetails trainingDetail : categorized) {
+      if (trainingDetail == null) {
+        continue;
+      }
+      trainingDetail.setModuleFolder(fileLocations.get(trainingDetail.getTrainingDetailId()).folderPath());
+      // A moved file leaves its old training behind, which needs its duration recalculated too
+      trainingDetailsRepository.findByTrainingDetailId(trainingDetail.getTrainingDetailId())
+        .forEach(previous -> touchedTrainings.add(previous.getTrainingId()));
+      touchedTrainings.add(trainingDetail.getTrainingId());
+      upserts.add(trainingDetail);
+    }
+    trainingUpsertRepository.upsertDetails(upserts);
+    result.setUpsertedModules(upserts.size());
+
+    touchedTrainings.removeAll(newTrainings);
+    for (String trainingId : touchedTrainings) {
+      refreshTrainingDuration(accessToken, driveId, trainingId, trainingFolders.get(trainingId), result);
+    }
+
+    saveDeltaLink(driveId, rootItemId, nextDeltaLink);
+    return result;
+  }
+
+  private void applyDeletion(String itemId, DeltaSyncResult result, Set<String> touchedTrainings) {
+    if (trainingMasterRepository.deleteByTrainingID(itemId) > 0) {
+      result.setDeletedModules(result.getDeletedModules() + (int) trainingDetailsRepository.deleteByTrainingId(itemId));
+      result.setDeletedTrainings(result.getDeletedTrainings() + 1);
+      catalogSearchIndex.removeCourse(itemId);
+      return;
+    }
+    List<TrainingDetails> details = trainingDetailsRepository.findByTrainingDetailId(itemId);
+    if (!details.isEmpty()) {
+      details.forEach(detail -> touchedTrainings.add(detail.getTrainingId()));
+      trainingDetailsRepository.deleteByTrainingDetailId(itemId);
+      catalogSearchIndex.removeModule(itemId);
+      result.setDeletedModules(result.getDeletedModules() + details.size());
+    }
+  }
+
+  private record TrainingLocation(String trainingId, String folderPath) {}
+
+  // Walks up from a folder to the training folder below the root; depth is how far the changed item sits below folderId
+  private Optional<TrainingLocation> locate(String accessToken, String driveId, String rootId, String folderId,
+                                            Map<String, GraphFile> changes, Map<String, Optional<TrainingLocation>> locations,
+                                            int depth) {
+    if (folderId == null || folderId.equals(rootId)) {
+      return Optional.empty();
+    }
+    Optional<TrainingLocation> known = locations.get(folderId);
+    if (known != null) {
+      return known;
+    }
+    Optional<TrainingLocation> location;
+    if (trainingMasterRepository.findFirstByTrainingID(folderId).isPresent()) {
+      location = Optional.of(new TrainingLocation(folderId, ""));
+    } else {
+      GraphFile folder = changes.containsKey(folderId)
+        ? changes.get(folderId)
+        : graphApiService.getDriveItem(accessToken, driveId, folderId);
+      if (rootId.equals(folder.getFolderId())) {
+        location = Optional.of(new TrainingLocation(folderId, ""));
+      } else if (depth >= trainingTreeCrawler.getMaxDepth()) {
+        // Deeper than a full crawl would go
+        location = Optional.empty();
+      } else {
+        location = locate(accessToken, driveId, rootId, folder.getFolderId(), changes, locations, depth + 1)
+          .map(parent -> new TrainingLocation(parent.trainingId(),
+            parent.folderPath().isEmpty() ? folder.getName() : parent.folderPath() + "/" + folder.getName()));
+      }
+    }
+    locations.put(folderId, location);
+    return location;
+  }
+
+  // Keeps the master in line with what a full crawl would produce: no master without modules
+  private void refreshTrainingDuration(String accessToken, String driveId, String trainingId, GraphFile folder,
+                                       DeltaSyncResult result) {
+    Optional<TrainingMaster> existing = trainingMasterRepository.findFirstByTrainingID(trainingId);
+    List<TrainingDetails> details = trainingDetailsRepository.findByTrainingId(trainingId);
+    if (details.isEmpty()) {
+      if (existing.isPresent()) {
+        trainingMasterRepository.deleteByTrainingID(trainingId);
+        catalogSearchIndex.removeCourse(trainingId);
+        result.setDeletedTrainings(result.getDeletedTrainings() + 1);
+      }
+      return;
+    }
+
+    TrainingMaster trainingMaster = existing.orElseGet(() -> {
+      GraphFile source = folder != null ? folder : graphApiService.getDriveItem(accessToken, driveId, trainingId);
+      TrainingMaster created = new TrainingMaster();
+      created.setTrainingID(trainingId);
+      created.setTrainingName(source.getName());
+      created.setTrainingContentPath(source.getWebUrl());
+      created.setCategory(details.get(0).getCategory());
+      created.setTrainingTopic(details.get(0).getTrainingTopic());
+      result.setAddedTrainings(result.getAddedTrainings() + 1);
+      return created;
+    });
+    trainingMaster.setDuration(trainingDetailsRepository.sumDurationByTrainingId(trainingId).longValue());
+    trainingUpsertRepository.upsertMasters(List.of(trainingMaster));
+  }
+
+  private void saveDeltaLink(String driveId, String rootItemId, String deltaLink) {
+    if (deltaLink == null) {
+      throw new RuntimeException("Graph did not return a deltaLink for drive " + driveId);
+    }
+    DriveDeltaToken token = deltaTokenRepository.findByDriveIdAndRootItemId(driveId, rootItemId)
+      .orElseGet(() -> {
+        DriveDeltaToken created = new DriveDeltaToken();
+        created.setDriveId(driveId);
+        created.setRootItemId(rootItemId);
+        return created;
+      });
+    token.setDeltaLink(deltaLink);
+    token.setUpdatedAt(Instant.now());
+    deltaTokenRepository.save(token);
+  }
+}
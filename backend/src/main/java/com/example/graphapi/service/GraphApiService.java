@@ -2,45 +2,90 @@ package com.example.graphapi.service;
 
 import com.example.graphapi.entity.TrainingDetails;
 import com.example.graphapi.entity.TrainingMaster;
-import com.example.graphapi.entity.VideoFiles;
 import com.example.graphapi.model.GraphFile;
-import com.example.graphapi.repository.VideoFileRepository;
-import com.example.graphapi.repository.TrainingMasterRepository;
-import com.example.graphapi.repository.TrainingDetailsRepository;
+import com.example.graphapi.model.GraphPage;
+import com.example.graphapi.model.IngestionStats;
+import com.example.graphapi.repository.TrainingUpsertRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class GraphApiService {
 
+  private static final Logger log = LoggerFactory.getLogger(GraphApiService.class);
+
+  // Only the fields createGraphFileFromNode reads
+  private static final String DRIVE_ITEM_SELECT =
+    "id,name,webUrl,size,createdDateTime,lastModifiedDateTime,parentReference,folder,eTag,cTag,@microsoft.graph.downloadUrl";
+  private static final String DELTA_SELECT = DRIVE_ITEM_SELECT + ",deleted";
+
   private final RestTemplate restTemplate;
   private final ObjectMapper objectMapper;
 
   @Autowired
-  private VideoFileRepository repository;
+  private TrainingUpsertRepository trainingUpsertRepository;
 
   @Autowired
-  private TrainingMasterRepository trainingMasterRepository;
+  private TrainingIngestionEngine ingestionEngine;
 
   @Autowired
-  private TrainingDetailsRepository trainingDetailsRepository;
+  private TokenValidationCache tokenValidationCache;
 
-  @Value("${target-url}")
-  private String targetUrl;
+  @Autowired
+  private CategorizerClient categorizerClient;
 
+  @Autowired
+  private CategorizationCache categorizationCache;
 
-  public GraphApiService() {
-    this.restTemplate = new RestTemplate();
+  @Autowired
+  private GraphBatchClient graphBatchClient;
+
+  @Autowired
+  private GraphFileStreamDecoder graphFileStreamDecoder;
+
+  @Autowired
+  private TrainingTreeCrawler trainingTreeCrawler;
+
+  @Autowired
+  private VideoProbeService videoProbeService;
+
+  @Autowired
+  private LocalCategorizer localCategorizer;
+
+  @Autowired
+  private GraphListingCache graphListingCache;
+
+  @Value("${graph.base-url:https://graph.microsoft.com/v1.0}")
+  private String graphBaseUrl;
+
+  @Value("${graph.page-size:200}")
+  private int pageSize;
+
+
+  public GraphApiService(@Qualifier("graphRestTemplate") RestTemplate restTemplate) {
+    this.restTemplate = restTemplate;
     this.objectMapper = new ObjectMapper();
   }
 
@@ -51,7 +96,7 @@ public class GraphApiService {
       HttpEntity<String> entity = new HttpEntity<>(headers);
 
       ResponseEntity<String> response = restTemplate.exchange(
-        String.format("https://graph.microsoft.com/v1.0/drives/%s/items/%s", driveId, itemId),
+        String.format("%s/drives/%s/items/%s", graphBaseUrl, driveId, itemId),
         HttpMethod.GET,
         entity,
         String.class
@@ -66,20 +111,10 @@ public class GraphApiService {
     }
   }
 
+  // Served from the validation cache, so /me is called at most once per token lifetime
   public boolean validateToken(String accessToken) {
     try {
-      HttpHeaders headers = new HttpHeaders();
-      headers.setBearerAuth(accessToken);
-      HttpEntity<String> entity = new HttpEntity<>(headers);
-
-      ResponseEntity<String> response = restTemplate.exchange(
-        "https://graph.microsoft.com/v1.0/me",
-        HttpMethod.GET,
-        entity,
-        String.class
-      );
-
-      return response.getStatusCode().is2xxSuccessful();
+      return getUserInfo(accessToken) != null;
     } catch (Exception e) {
       return false;
     }
@@ -87,23 +122,10 @@ public class GraphApiService {
 
   public List<GraphFile> getAllFiles(String accessToken) {
     try {
-      HttpHeaders headers = new HttpHeaders();
-      headers.setBearerAuth(accessToken);
-      HttpEntity<String> entity = new HttpEntity<>(headers);
-
       // Get files from OneDrive
-      ResponseEntity<String> response = restTemplate.exchange(
-        "https://graph.microsoft.com/v1.0/me/drive/root/children",
-        HttpMethod.GET,
-        entity,
-        String.class
-      );
-
-      if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-        return parseFilesFromResponse(response.getBody(),null,null,null);
-      }
-
-      return new ArrayList<>();
+      return streamListingPages(accessToken, withDriveItemQuery(graphBaseUrl + "/me/drive/root/children", pageSize))
+        .flatMap(List::stream)
+        .toList();
     } catch (Exception e) {
       throw new RuntimeException("Failed to fetch files from Graph API: " + e.getMessage());
     }
@@ -111,23 +133,11 @@ public class GraphApiService {
 
   public List<GraphFile> getRecentFiles(String accessToken, int limit) {
     try {
-      HttpHeaders headers = new HttpHeaders();
-      headers.setBearerAuth(accessToken);
-      HttpEntity<String> entity = new HttpEntity<>(headers);
-
-      // Get recent files
-      ResponseEntity<String> response = restTemplate.exchange(
-        "https://graph.microsoft.com/v1.0/me/drive/recent?$top=" + limit,
-        HttpMethod.GET,
-        entity,
-        String.class
-      );
-
-      if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-        return parseFilesFromResponse(response.getBody(),null,null,null);
-      }
-
-      return new ArrayList<>();
+      // Get recent files, following pages only until the limit is reached
+      return streamListingPages(accessToken, withDriveItemQuery(graphBaseUrl + "/me/drive/recent", limit))
+        .flatMap(List::stream)
+        .limit(limit)
+        .toList();
     } catch (Exception e) {
       throw new RuntimeException("Failed to fetch recent files from Graph API: " + e.getMessage());
     }
@@ -135,53 +145,239 @@ public class GraphApiService {
 
   public List<GraphFile> getDriveItemChildren(String accessToken, String driveId, String itemId) {
     try {
-      HttpHeaders headers = new HttpHeaders();
-      headers.setBearerAuth(accessToken);
-      HttpEntity<String> entity = new HttpEntity<>(headers);
-
       // Get children of specific drive item
-      String url = String.format("https://graph.microsoft.com/v1.0/drives/%s/items/%s/children", driveId, itemId);
-      ResponseEntity<String> response = restTemplate.exchange(
-        url,
-        HttpMethod.GET,
-        entity,
-        String.class
-      );
+      String url = String.format("%s/drives/%s/items/%s/children", graphBaseUrl, driveId, itemId);
+      return streamListingPages(accessToken, withDriveItemQuery(url, pageSize))
+        .flatMap(List::stream)
+        .toList();
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to fetch drive item children from Graph API: " + e.getMessage());
+    }
+  }
 
-      if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-        return parseFilesFromResponse(response.getBody(), null, null, null);
+  // Pages are fetched lazily, the next page is only requested once the consumer has taken the previous one
+  public Stream<List<GraphFile>> streamDriveItemChildren(String accessToken, String driveId, String itemId,
+                                                         IngestionStats stats) {
+    String url = String.format("%s/drives/%s/items/%s/children", graphBaseUrl, driveId, itemId);
+    return streamDriveItemPages(accessToken, withDriveItemQuery(url, pageSize), stats);
+  }
+
+  private Stream<List<GraphFile>> streamDriveItemPages(String accessToken, String url, IngestionStats stats) {
+    return Stream.iterate(fetchDriveItemPage(accessToken, url, stats), Objects::nonNull,
+        page -> page.hasNextPage() ? fetchDriveItemPage(accessToken, page.getNextLink(), stats) : null)
+      .map(GraphPage::getItems);
+  }
+
+  private GraphPage fetchDriveItemPage(String accessToken, String url, IngestionStats stats) {
+    long start = System.nanoTime();
+
+    // nextLink is already encoded, so it must not go through URI template expansion
+    GraphPage page = restTemplate.execute(
+      URI.create(url),
+      HttpMethod.GET,
+      request -> request.getHeaders().setBearerAuth(accessToken),
+      response -> response.getStatusCode().is2xxSuccessful()
+        ? graphFileStreamDecoder.decodePage(response.getBody())
+        : GraphPage.empty()
+    );
+
+    if (page == null) {
+      page = GraphPage.empty();
+    }
+    if (stats != null) {
+      stats.record("list", page.getItems().size(), System.nanoTime() - start);
+    }
+    return page;
+  }
+
+  // Listings requested by the UI; pages are revalidated against the listing cache instead of re-downloaded
+  private Stream<List<GraphFile>> streamListingPages(String accessToken, String url) {
+    return Stream.iterate(fetchListingPage(accessToken, url), Objects::nonNull,
+        page -> page.hasNextPage() ? fetchListingPage(accessToken, page.getNextLink()) : null)
+      .map(GraphPage::getItems);
+  }
+
+  private GraphPage fetchListingPage(String accessToken, String url) {
+    if (!graphListingCache.isEnabled()) {
+      return fetchDriveItemPage(accessToken, url, null);
+    }
+    GraphListingCache.Entry cached = graphListingCache.get(accessToken, url);
+    GraphPage page = restTemplate.execute(
+      URI.create(url),
+      HttpMethod.GET,
+      request -> {
+        request.getHeaders().setBearerAuth(accessToken);
+        if (cached != null) {
+          request.getHeaders().setIfNoneMatch(cached.eTag());
+        }
+      },
+      response -> {
+        if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value() && cached != null) {
+          return graphListingCache.notModified(accessToken, url, cached);
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+          return GraphPage.empty();
+        }
+        GraphPage fresh = graphFileStreamDecoder.decodePage(response.getBody());
+        graphListingCache.put(accessToken, url, response.getHeaders().getETag(), fresh, cached != null);
+        return fresh;
       }
+    );
+    return page != null ? page : GraphPage.empty();
+  }
 
-      return new ArrayList<>();
+  private String withDriveItemQuery(String url, int top) {
+    return url + "?$select=" + DRIVE_ITEM_SELECT + "&$top=" + top;
+  }
+
+  public IngestionStats processTrainingData(String accessToken, String driveId, String itemId) {
+    return processTrainingData(accessToken, driveId, itemId, new IngestionStats(), IngestionListener.NONE);
+  }
+
+  public IngestionStats processTrainingData(String accessToken, String driveId, String itemId, IngestionStats stats,
+                                            IngestionListener listener) {
+    try {
+      // Stream root items (training folders); each page of folders is listed with $batch and handed to the engine
+      Stream<FolderListing> folders = streamDriveItemChildren(accessToken, driveId, itemId, stats)
+        .peek(listener::onRootPage)
+        .flatMap(page -> listFolders(accessToken, driveId, page.stream().filter(GraphFile::getIsFolder).toList(), stats));
+      int folderCount;
+      try (TrainingWriteBuffer writeBuffer = new TrainingWriteBuffer(trainingUpsertRepository, stats)) {
+        folderCount = ingestionEngine.forEachFolder(folders, listing -> {
+          try {
+            int files = processTrainingFolder(accessToken, driveId, listing.folder(), listing.children(), stats, writeBuffer);
+            listener.onFolderCompleted(listing.folder(), files);
+          } catch (RuntimeException e) {
+            stats.recordError("folder");
+            if (!listener.onFolderFailed(listing.folder(), e)) {
+              throw e;
+            }
+          }
+        });
+      }
+
+      stats.finish();
+      log.info("Processed {} training folders for drive {}: {}", folderCount, driveId, stats);
+      return stats;
     } catch (Exception e) {
-      throw new RuntimeException("Failed to fetch drive item children from Graph API: " + e.getMessage());
+      throw new RuntimeException("Failed to process training data: " + e.getMessage());
+    }
+  }
+
+  private record FolderListing(GraphFile folder, List<GraphFile> children) {}
+
+  private Stream<FolderListing> listFolders(String accessToken, String driveId, List<GraphFile> folders,
+                                            IngestionStats stats) {
+    Map<String, List<GraphFile>> children = getChildrenOfFolders(accessToken, driveId, folders, stats);
+    return folders.stream().map(folder -> new FolderListing(folder, children.get(folder.getId())));
+  }
+
+  // First pages are fetched through $batch, folders with more pages are followed individually
+  public Map<String, List<GraphFile>> getChildrenOfFolders(String accessToken, String driveId, List<GraphFile> folders,
+                                                           IngestionStats stats) {
+    Map<String, List<GraphFile>> childrenByFolder = new LinkedHashMap<>();
+    if (folders.isEmpty()) {
+      return childrenByFolder;
+    }
+    long start = System.nanoTime();
+    List<GraphBatchClient.BatchRequest> requests = folders.stream()
+      .map(folder -> new GraphBatchClient.BatchRequest(folder.getId(), withDriveItemQuery(
+        String.format("%s/drives/%s/items/%s/children", graphBaseUrl, driveId, folder.getId()), pageSize)))
+      .toList();
+    Map<String, GraphBatchClient.BatchResponse> responses = graphBatchClient.getAll(accessToken, requests);
+
+    long items = 0;
+    for (GraphFile folder : folders) {
+      GraphBatchClient.BatchResponse response = responses.get(folder.getId());
+      if (response == null || !response.isSuccessful()) {
+        throw new RuntimeException("Failed to fetch drive item children from Graph API: status "
+          + (response == null ? "missing" : response.status()) + " for " + folder.getId());
+      }
+      GraphPage firstPage = parsePage(response.body());
+      List<GraphFile> children = new ArrayList<>(firstPage.getItems());
+      if (firstPage.hasNextPage()) {
+        streamDriveItemPages(accessToken, firstPage.getNextLink(), stats).forEach(children::addAll);
+      }
+      items += firstPage.getItems().size();
+      childrenByFolder.put(folder.getId(), children);
+    }
+    if (stats != null) {
+      stats.record("list", items, System.nanoTime() - start);
     }
+    return childrenByFolder;
   }
 
-  public void processTrainingData(String accessToken, String driveId, String itemId) {
+  // Download urls of many items, 20 lookups per $batch call; items that cannot be read are left out
+  public Map<String, String> getVideoDownloadUrls(String accessToken, String driveId, List<String> itemIds) {
     try {
-      // Get all root items (training folders)
-      List<GraphFile> rootItems = getDriveItemChildren(accessToken, driveId, itemId);
+      List<GraphBatchClient.BatchRequest> requests = itemIds.stream()
+        .distinct()
+        .map(id -> new GraphBatchClient.BatchRequest(id,
+          String.format("%s/drives/%s/items/%s?$select=id,@microsoft.graph.downloadUrl", graphBaseUrl, driveId, id)))
+        .toList();
+      Map<String, String> downloadUrls = new LinkedHashMap<>();
+      graphBatchClient.getAll(accessToken, requests).forEach((id, response) -> {
+        if (response.isSuccessful()) {
+          String downloadUrl = response.body().path("@microsoft.graph.downloadUrl").asText(null);
+          if (downloadUrl != null) {
+            downloadUrls.put(id, downloadUrl);
+          }
+        }
+      });
+      return downloadUrls;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to get video download URLs: " + e.getMessage());
+    }
+  }
 
-      // Process each training folder
-      for (GraphFile rootItem : rootItems) {
-        if (rootItem.getIsFolder()) {
-          processTrainingFolder(accessToken, driveId, rootItem);
+  // Metadata of many items, 20 lookups per $batch call; items that cannot be read are left out
+  public List<GraphFile> getDriveItems(String accessToken, String driveId, List<String> itemIds) {
+    try {
+      List<GraphBatchClient.BatchRequest> requests = itemIds.stream()
+        .distinct()
+        .map(id -> new GraphBatchClient.BatchRequest(id,
+          String.format("%s/drives/%s/items/%s?$select=%s", graphBaseUrl, driveId, id, DRIVE_ITEM_SELECT)))
+        .toList();
+      List<GraphFile> items = new ArrayList<>(requests.size());
+      graphBatchClient.getAll(accessToken, requests).forEach((id, response) -> {
+        if (response.isSuccessful()) {
+          items.add(createGraphFileFromNode(response.body()));
+        } else {
+          log.warn("Skipping drive item {}: status {}", id, response.status());
         }
-      }
+      });
+      return items;
     } catch (Exception e) {
-      throw new RuntimeException("Failed to process training data: " + e.getMessage());
+      throw new RuntimeException("Failed to fetch drive items from Graph API: " + e.getMessage());
     }
   }
 
+  // Accepts a bare array of drive items, a Graph page ({"value": [...]}) or {"files": [...]}
+  public List<GraphFile> parseDriveItems(JsonNode root) {
+    JsonNode items = root.isArray() ? root : root.has("value") ? root.get("value") : root.path("files");
+    List<GraphFile> files = new ArrayList<>();
+    for (JsonNode node : items) {
+      files.add(createGraphFileFromNode(node));
+    }
+    return files;
+  }
+
   public JsonNode getUserInfo(String accessToken) {
+    try {
+      return tokenValidationCache.getOrLoad(accessToken, this::fetchUserInfo);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to fetch user info from Graph API: " + e.getMessage());
+    }
+  }
+
+  private JsonNode fetchUserInfo(String accessToken) {
     try {
       HttpHeaders headers = new HttpHeaders();
       headers.setBearerAuth(accessToken);
       HttpEntity<String> entity = new HttpEntity<>(headers);
 
       ResponseEntity<String> response = restTemplate.exchange(
-        "https://graph.microsoft.com/v1.0/me",
+        graphBaseUrl + "/me",
         HttpMethod.GET,
         entity,
         String.class
@@ -193,41 +389,43 @@ public class GraphApiService {
 
       return null;
     } catch (Exception e) {
-      throw new RuntimeException("Failed to fetch user info from Graph API: " + e.getMessage());
+      throw new RuntimeException(e.getMessage(), e);
     }
   }
 
-  private List<GraphFile> parseFilesFromResponse(String responseBody, String accessToken, String driveId, String itemId) {
+  private GraphPage parsePage(JsonNode root) {
     List<GraphFile> files = new ArrayList<>();
-    try {
-      JsonNode root = objectMapper.readTree(responseBody);
-      JsonNode valueNode = root.get("value");
+    JsonNode valueNode = root.get("value");
 
-      if (valueNode != null && valueNode.isArray()) {
-        for (JsonNode fileNode : valueNode) {
-          GraphFile file = createGraphFileFromNode(fileNode);
-          files.add(file);
-        }
+    if (valueNode != null && valueNode.isArray()) {
+      for (JsonNode fileNode : valueNode) {
+        GraphFile file = createGraphFileFromNode(fileNode);
+        files.add(file);
       }
-    } catch (Exception e) {
-      throw new RuntimeException("Failed to parse files response: " + e.getMessage());
     }
-    return files;
+    return new GraphPage(files, root.path("@odata.nextLink").asText(null), root.path("@odata.deltaLink").asText(null));
+  }
+
+  public void processTrainingFolder(String accessToken, String driveId, GraphFile folderItem, IngestionStats stats) {
+    try (TrainingWriteBuffer writeBuffer = new TrainingWriteBuffer(trainingUpsertRepository, stats)) {
+      processTrainingFolder(accessToken, driveId, folderItem, null, stats, writeBuffer);
+    }
   }
 
-  private void processTrainingFolder(String accessToken, String driveId, GraphFile folderItem) {
+  // Returns the number of files in the folder
+  private int processTrainingFolder(String accessToken, String driveId, GraphFile folderItem, List<GraphFile> children,
+                                    IngestionStats stats, TrainingWriteBuffer writeBuffer) {
     try {
       String folderId = folderItem.getId();
       String folderName = folderItem.getName();
       String folderPath = folderItem.getWebUrl();
 
-      // Get all files in this training folder
-      List<GraphFile> folderFiles = getDriveItemChildren(accessToken, driveId, folderId);
-
-      // Filter only actual files (not subfolders)
-      List<GraphFile> actualFiles = folderFiles.stream()
-        .filter(file -> !file.getIsFolder())
-        .toList();
+      // Get all files in this training folder and its subfolders, down to ingestion.max-depth
+      List<TrainingTreeCrawler.CrawledFile> crawled = trainingTreeCrawler.crawl(folderItem, children,
+        folders -> getChildrenOfFolders(accessToken, driveId, folders, stats));
+      List<GraphFile> actualFiles = crawled.stream().map(TrainingTreeCrawler.CrawledFile::file).toList();
+      Map<String, String> moduleFolders = new HashMap<>();
+      crawled.forEach(file -> moduleFolders.put(file.file().getId(), file.folderPath()));
 
       if (!actualFiles.isEmpty()) {
         // Create Training Master record
@@ -236,46 +434,171 @@ public class GraphApiService {
         trainingMaster.setTrainingName(folderName);
         trainingMaster.setTrainingContentPath(folderPath);
 
-        // Get category and topic from first file
-        TrainingDetails categoryInfo = getCategoryFromFileForTrainingDetails(
-          actualFiles.get(0).getName(), driveId, actualFiles.get(0).getId(), accessToken);
-        if (categoryInfo != null) {
-          trainingMaster.setCategory(categoryInfo.getCategory());
-          trainingMaster.setTrainingTopic(categoryInfo.getTrainingTopic());
-        }
+        // Categorize files concurrently, results keep the folder order
+        List<TrainingDetails> categorized = categorizeTrainingFiles(accessToken, driveId, folderId, actualFiles, stats);
+
+        // Category and topic come from the first categorized file
+        categorized.stream()
+          .filter(Objects::nonNull)
+          .findFirst()
+          .ifPresent(categoryInfo -> {
+            trainingMaster.setCategory(categoryInfo.getCategory());
+            trainingMaster.setTrainingTopic(categoryInfo.getTrainingTopic());
+          });
 
         // Calculate total duration by summing all file durations
         long totalDuration = 0;
         List<TrainingDetails> trainingDetails = new ArrayList<>();
-        for (GraphFile file : actualFiles) {
-          TrainingDetails trainingDetail = getCategoryFromFileForTrainingDetails(
-            file.getName(), driveId, file.getId(), accessToken);
+        for (TrainingDetails trainingDetail : categorized) {
           if (trainingDetail != null) {
-            trainingDetail.setTrainingId(folderId); // Foreign key
-            trainingDetail.setTrainingDetailId(file.getId());
-            trainingDetail.setModuleName(file.getName());
-            trainingDetail.setModulePath(file.getWebUrl());
             if (trainingDetail.getDuration() != null) {
               totalDuration += trainingDetail.getDuration();
             }
+            trainingDetail.setModuleFolder(moduleFolders.get(trainingDetail.getTrainingDetailId()));
             trainingDetails.add(trainingDetail);
           }
         }
         trainingMaster.setDuration(totalDuration);
 
-        // Save training master
-        trainingMasterRepository.save(trainingMaster);
-        trainingDetailsRepository.saveAll(trainingDetails);
+        // Upsert training master and details, batched with other folders of this run
+        writeBuffer.add(trainingMaster, trainingDetails);
       }
+      stats.record("folders", 1, 0);
+      stats.recordFiles(actualFiles.size(), actualFiles.stream()
+        .mapToLong(file -> file.getSize() != null ? file.getSize() : 0)
+        .sum());
+      return actualFiles.size();
     } catch (Exception e) {
       throw new RuntimeException("Failed to process training folder: " + e.getMessage());
     }
   }
 
+  public TrainingDetails categorizeTrainingFile(String accessToken, String driveId, String trainingId, GraphFile file,
+                                                IngestionStats stats) {
+    TrainingDetails trainingDetail = stats.time("categorize", () -> getCategoryFromFileForTrainingDetails(
+      file.getName(), driveId, file.getId(), accessToken));
+    return toTrainingDetail(trainingDetail, trainingId, file);
+  }
+
+  // Results keep the order of the given files; files whose content is unchanged are served from the cache
+  public List<TrainingDetails> categorizeTrainingFiles(String accessToken, String driveId, String trainingId,
+                                                       List<GraphFile> files, IngestionStats stats) {
+    Map<String, TrainingDetails> cached = categorizationCache.lookup(files);
+    stats.record("categorize-cached", cached.size(), 0);
+    List<GraphFile> uncachedFiles = files.stream()
+      .filter(file -> !cached.containsKey(file.getId()))
+      .toList();
+    List<TrainingDetails> categorized = categorizeUncached(accessToken, driveId, trainingId, uncachedFiles, stats);
+    videoProbeService.fillDurations(uncachedFiles, categorized, stats);
+    categorizationCache.store(uncachedFiles, categorized);
+
+    Iterator<TrainingDetails> fresh = categorized.iterator();
+    List<TrainingDetails> trainingDetails = new ArrayList<>(files.size());
+    for (GraphFile file : files) {
+      TrainingDetails hit = cached.get(file.getId());
+      trainingDetails.add(hit != null ? toTrainingDetail(hit, trainingId, file) : fresh.next());
+    }
+    return trainingDetails;
+  }
+
+  private List<TrainingDetails> categorizeUncached(String accessToken, String driveId, String trainingId,
+                                                   List<GraphFile> files, IngestionStats stats) {
+    if (files.isEmpty()) {
+      return new ArrayList<>();
+    }
+    if (localCategorizer.isEnabled()) {
+      long start = System.nanoTime();
+      List<TrainingDetails> categorized = localCategorizer.categorize(files.stream()
+        .map(file -> new LocalCategorizer.Input(file.getName(), file.getFolderName(), null))
+        .toList());
+      List<TrainingDetails> trainingDetails = new ArrayList<>(files.size());
+      for (int i = 0; i < files.size(); i++) {
+        trainingDetails.add(toTrainingDetail(categorized.get(i), trainingId, files.get(i)));
+      }
+      stats.record("categorize", files.size(), System.nanoTime() - start);
+      return trainingDetails;
+    }
+    if (!categorizerClient.isBatchEnabled()) {
+      return ingestionEngine.mapFiles(files, file -> categorizeTrainingFile(accessToken, driveId, trainingId, file, stats));
+    }
+
+    // Submit the whole folder up front so the client can fill its batches
+    long start = System.nanoTime();
+    List<CompletableFuture<TrainingDetails>> futures = files.stream()
+      .map(file -> categorizerClient.submit(file.getName(), driveId, file.getId(), accessToken))
+      .toList();
+    List<TrainingDetails> trainingDetails = new ArrayList<>(files.size());
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        trainingDetails.add(toTrainingDetail(futures.get(i).join(), trainingId, files.get(i)));
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+    stats.record("categorize", files.size(), System.nanoTime() - start);
+    return trainingDetails;
+  }
+
+  private TrainingDetails toTrainingDetail(TrainingDetails trainingDetail, String trainingId, GraphFile file) {
+    if (trainingDetail != null) {
+      trainingDetail.setTrainingId(trainingId); // Foreign key
+      trainingDetail.setTrainingDetailId(file.getId());
+      trainingDetail.setModuleName(file.getName());
+      trainingDetail.setModulePath(file.getWebUrl());
+    }
+    return trainingDetail;
+  }
+
+  public GraphFile getDriveItem(String accessToken, String driveId, String itemId) {
+    try {
+      HttpHeaders headers = new HttpHeaders();
+      headers.setBearerAuth(accessToken);
+      HttpEntity<String> entity = new HttpEntity<>(headers);
+
+      String url = String.format("%s/drives/%s/items/%s?$select=%s", graphBaseUrl, driveId, itemId, DRIVE_ITEM_SELECT);
+      ResponseEntity<String> response = restTemplate.exchange(
+        URI.create(url),
+        HttpMethod.GET,
+        entity,
+        String.class
+      );
+
+      return createGraphFileFromNode(objectMapper.readTree(response.getBody()));
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to fetch drive item from Graph API: " + e.getMessage());
+    }
+  }
+
+  public String getInitialDeltaLink(String driveId, String itemId) {
+    return String.format("%s/drives/%s/items/%s/delta?$select=%s&$top=%d",
+      graphBaseUrl, driveId, itemId, DELTA_SELECT, pageSize);
+  }
+
+  // Returns a deltaLink positioned at the current state of the drive without enumerating it
+  public String getLatestDeltaLink(String accessToken, String driveId, String itemId) {
+    String url = String.format("%s/drives/%s/items/%s/delta?$select=%s&token=latest",
+      graphBaseUrl, driveId, itemId, DELTA_SELECT);
+    return fetchDriveItemPage(accessToken, url, null).getDeltaLink();
+  }
+
+  // Follows nextLink until Graph hands out the deltaLink for the next sync, which is returned
+  public String forEachDeltaPage(String accessToken, String deltaLink, Consumer<List<GraphFile>> consumer) {
+    GraphPage page = fetchDriveItemPage(accessToken, deltaLink, null);
+    consumer.accept(page.getItems());
+    while (page.hasNextPage()) {
+      page = fetchDriveItemPage(accessToken, page.getNextLink(), null);
+      consumer.accept(page.getItems());
+    }
+    return page.getDeltaLink();
+  }
+
   private GraphFile createGraphFileFromNode(JsonNode fileNode) {
     GraphFile file = new GraphFile();
-    file.setId(fileNode.get("id").asText());
-    file.setName(fileNode.get("name").asText());
+    file.setId(fileNode.path("id").asText(null));
+    file.setName(fileNode.path("name").asText(null));
 
     if (fileNode.has("webUrl")) {
       file.setWebUrl(fileNode.get("webUrl").asText());
@@ -293,31 +616,22 @@ public class GraphApiService {
       file.setDownloadUrl(fileNode.get("@microsoft.graph.downloadUrl").asText());
     }
     if (fileNode.has("parentReference")) {
-      file.setFolderName(fileNode.get("parentReference").get("name").asText());
-      file.setFolderId(fileNode.get("parentReference").get("id").asText());
+      file.setFolderName(fileNode.get("parentReference").path("name").asText(null));
+      file.setFolderId(fileNode.get("parentReference").path("id").asText(null));
     }
 
+    file.setETag(fileNode.path("eTag").asText(null));
+    file.setCTag(fileNode.path("cTag").asText(null));
     file.setIsFolder(fileNode.has("folder"));
+    file.setDeleted(fileNode.has("deleted"));
     return file;
   }
 
 
   public TrainingDetails getCategoryFromFileForTrainingDetails(String fileName, String driveID, String itemID, String accessToken) {
-    try {
-      HttpHeaders headers = new HttpHeaders();
-      headers.setBearerAuth(accessToken);
-      Map<String, String> body =  Map.of(
-        "driveId", driveID,
-        "itemId", itemID,
-        "filename",fileName);
-
-      HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(body, headers);
-
-      ResponseEntity<TrainingDetails> response = restTemplate.postForEntity(targetUrl, requestEntity, TrainingDetails.class);
-
-      return  response.getBody();
-    } catch (Exception e) {
-      throw new RuntimeException("Error forwarding file", e);
+    if (localCategorizer.isEnabled()) {
+      return localCategorizer.categorize(List.of(new LocalCategorizer.Input(fileName, null, null))).get(0);
     }
+    return categorizerClient.categorize(fileName, driveID, itemID, accessToken);
   }
 }
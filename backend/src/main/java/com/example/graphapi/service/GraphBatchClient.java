@@ -0,0 +1,159 @@
+package com.example.graphapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Combines independent Graph GETs into JSON $batch calls of up to max-requests sub-requests.
+ * Responses are matched back by id; sub-requests that were throttled, failed on the server or
+ * are missing from the batch response are retried one by one.
+ */
+@Component
+public class GraphBatchClient {
+
+  private static final Logger log = LoggerFactory.getLogger(GraphBatchClient.class);
+
+  private final RestTemplate restTemplate;
+  private final ObjectMapper objectMapper;
+
+  @Value("${graph.base-url:https://graph.microsoft.com/v1.0}")
+  private String graphBaseUrl;
+
+  @Value("${graph.batch.enabled:true}")
+  private boolean enabled;
+
+  @Value("${graph.batch.max-requests:20}")
+  private int maxRequests;
+
+  public GraphBatchClient(@Qualifier("graphRestTemplate") RestTemplate restTemplate) {
+    this.restTemplate = restTemplate;
+    this.objectMapper = new ObjectMapper();
+  }
+
+  public record BatchRequest(String id, String url) {}
+
+  public record BatchResponse(String id, int status, JsonNode body) {
+
+    public boolean isSuccessful() {
+      return status >= 200 && status < 300;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // Request urls are absolute Graph urls or relative to the Graph version root; responses are keyed by request id
+  public Map<String, BatchResponse> getAll(String accessToken, List<BatchRequest> requests) {
+    Map<String, BatchResponse> responses = new LinkedHashMap<>();
+    if (!enabled) {
+      requests.forEach(request -> responses.put(request.id(), getSingle(accessToken, request)));
+      return responses;
+    }
+    for (int from = 0; from < requests.size(); from += maxRequests) {
+      List<BatchRequest> chunk = requests.subList(from, Math.min(from + maxRequests, requests.size()));
+      responses.putAll(executeChunk(accessToken, chunk));
+    }
+    return responses;
+  }
+
+  private Map<String, BatchResponse> executeChunk(String accessToken, List<BatchRequest> chunk) {
+    Map<String, BatchResponse> responses = new LinkedHashMap<>();
+    if (chunk.size() == 1) {
+      BatchRequest request = chunk.get(0);
+      responses.put(request.id(), getSingle(accessToken, request));
+      return responses;
+    }
+
+    try {
+      List<Map<String, String>> subRequests = new ArrayList<>(chunk.size());
+      for (BatchRequest request : chunk) {
+        subRequests.add(Map.of("id", request.id(), "method", "GET", "url", relative(request.url())));
+      }
+      HttpHeaders headers = new HttpHeaders();
+      headers.setBearerAuth(accessToken);
+      headers.setContentType(MediaType.APPLICATION_JSON);
+      HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(Map.of("requests", subRequests)), headers);
+
+      ResponseEntity<String> response = restTemplate.exchange(
+        URI.create(graphBaseUrl + "/$batch"),
+        HttpMethod.POST,
+        entity,
+        String.class
+      );
+
+      for (JsonNode node : objectMapper.readTree(response.getBody()).path("responses")) {
+        String id = node.path("id").asText();
+        responses.put(id, new BatchResponse(id, node.path("status").asInt(), node.path("body")));
+      }
+    } catch (Exception e) {
+      log.warn("Graph batch of {} requests failed, retrying individually: {}", chunk.size(), e.getMessage());
+    }
+
+    for (BatchRequest request : chunk) {
+      BatchResponse response = responses.get(request.id());
+      if (response == null || isRetryable(response.status())) {
+        responses.put(request.id(), getSingle(accessToken, request));
+      }
+    }
+    return responses;
+  }
+
+  private BatchResponse getSingle(String accessToken, BatchRequest request) {
+    try {
+      HttpHeaders headers = new HttpHeaders();
+      headers.setBearerAuth(accessToken);
+      HttpEntity<String> entity = new HttpEntity<>(headers);
+
+      ResponseEntity<String> response = restTemplate.exchange(
+        URI.create(absolute(request.url())),
+        HttpMethod.GET,
+        entity,
+        String.class
+      );
+      return new BatchResponse(request.id(), response.getStatusCode().value(), objectMapper.readTree(response.getBody()));
+    } catch (HttpStatusCodeException e) {
+      return new BatchResponse(request.id(), e.getStatusCode().value(), readBody(e.getResponseBodyAsString()));
+    } catch (Exception e) {
+      throw new RuntimeException("Graph request failed: " + e.getMessage(), e);
+    }
+  }
+
+  private JsonNode readBody(String body) {
+    try {
+      return objectMapper.readTree(body);
+    } catch (Exception e) {
+      return objectMapper.missingNode();
+    }
+  }
+
+  private static boolean isRetryable(int status) {
+    return status == 429 || status >= 500;
+  }
+
+  private String relative(String url) {
+    return url.startsWith(graphBaseUrl) ? url.substring(graphBaseUrl.length()) : url;
+  }
+
+  private String absolute(String url) {
+    return url.startsWith("/") ? graphBaseUrl + url : url;
+  }
+}
@@ -0,0 +1,123 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.GraphPage;
+import com.example.graphapi.util.JwtClaims;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pages of Graph drive listings keyed by user and request url, kept with the ETag Graph sent
+ * for them. A cached page is never served blindly: the caller revalidates it with
+ * If-None-Match and only reuses it on 304. Entries live at most ttl-seconds, which also bounds
+ * how old the pre-authenticated download urls inside a reused page can get, and the least
+ * recently used entries are dropped beyond max-entries.
+ */
+@Component
+public class GraphListingCache {
+
+  @Value("${graph.listing-cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${graph.listing-cache.max-entries:1000}")
+  private int maxEntries;
+
+  @Value("${graph.listing-cache.ttl-seconds:300}")
+  private long ttlSeconds;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder revalidations = new LongAdder();
+  private final LongAdder changed = new LongAdder();
+  private final LongAdder uncacheable = new LongAdder();
+
+  public record Entry(String eTag, GraphPage page, long expiresAtMillis) {}
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // Returns the entry to revalidate, or null when the page has to be fetched unconditionally
+  public Entry get(String accessToken, String url) {
+    String key = key(accessToken, url);
+    long now = System.currentTimeMillis();
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null && entry.expiresAtMillis() <= now) {
+        entries.remove(key);
+        entry = null;
+      }
+      if (entry == null) {
+        misses.increment();
+      } else {
+        revalidations.increment();
+      }
+      return entry;
+    }
+  }
+
+  // Called on 304; the cached page stays valid for another ttl
+  public GraphPage notModified(String accessToken, String url, Entry entry) {
+    hits.increment();
+    synchronized (entries) {
+      entries.put(key(accessToken, url), new Entry(entry.eTag(), entry.page(),
+        System.currentTimeMillis() + ttlSeconds * 1000));
+    }
+    return entry.page();
+  }
+
+  // Called on 200; responses without an ETag cannot be revalidated and are not kept
+  public void put(String accessToken, String url, String eTag, GraphPage page, boolean replacing) {
+    if (replacing) {
+      changed.increment();
+    }
+    String key = key(accessToken, url);
+    if (eTag == null || eTag.isEmpty()) {
+      uncacheable.increment();
+      synchronized (entries) {
+        entries.remove(key);
+      }
+      return;
+    }
+    GraphPage copy = new GraphPage(List.copyOf(page.getItems()), page.getNextLink(), page.getDeltaLink());
+    synchronized (entries) {
+      entries.put(key, new Entry(eTag, copy, System.currentTimeMillis() + ttlSeconds * 1000));
+      if (entries.size() > maxEntries) {
+        entries.remove(entries.keySet().iterator().next());
+      }
+    }
+  }
+
+  public Map<String, Object> getMetrics() {
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("enabled", enabled);
+    synchronized (entries) {
+      metrics.put("entries", entries.size());
+    }
+    metrics.put("maxEntries", maxEntries);
+    metrics.put("hits", hits.sum());
+    metrics.put("misses", misses.sum());
+    metrics.put("revalidations", revalidations.sum());
+    metrics.put("changed", changed.sum());
+    metrics.put("uncacheable", uncacheable.sum());
+    long lookups = misses.sum() + revalidations.sum();
+    metrics.put("hitRatio", lookups == 0 ? 0.0 : (double) hits.sum() / lookups);
+    return metrics;
+  }
+
+  // Listings are per user, a new token of the same user keeps hitting the same entries. The claims are
+  // not verified here, which is fine since a page is only reused on a 304 to the caller's own token
+  private static String key(String accessToken, String url) {
+    JsonNode claims = JwtClaims.decode(accessToken);
+    String tenant = JwtClaims.claim(claims, "tid");
+    String user = JwtClaims.claim(claims, "oid");
+    String userKey = user != null ? tenant + ":" + user : JwtClaims.hash(accessToken);
+    return userKey + " " + url;
+  }
+}
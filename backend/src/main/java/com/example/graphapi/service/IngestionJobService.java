@@ -0,0 +1,191 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.IngestionJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs training ingestion outside the request thread. Jobs are queued on a dedicated bounded
+ * executor and kept in memory for retention-minutes after they finish; subscribers get a
+ * "progress" event every progress-interval-ms and a final "completed" or "failed" event.
+ */
+@Service
+public class IngestionJobService {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestionJobService.class);
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Value("${ingestion.jobs.concurrency:2}")
+  private int concurrency;
+
+  @Value("${ingestion.jobs.queue-capacity:16}")
+  private int queueCapacity;
+
+  @Value("${ingestion.jobs.retention-minutes:60}")
+  private long retentionMinutes;
+
+  @Value("${ingestion.jobs.sse-timeout-ms:1800000}")
+  private long sseTimeoutMs;
+
+  private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+  private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+  private ThreadPoolExecutor jobExecutor;
+
+  @PostConstruct
+  void start() {
+    AtomicInteger counter = new AtomicInteger();
+    // Rejects instead of running on the caller, a full queue must not block the request thread
+    jobExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+        Thread thread = new Thread(runnable, "ingest-job-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @PreDestroy
+  void stop() {
+    jobExecutor.shutdownNow();
+  }
+
+  // Throws RejectedExecutionException when queue-capacity jobs are already waiting
+  public IngestionJob submit(String accessToken, String driveId, String itemId) {
+    IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), driveId, itemId);
+    jobs.put(job.getId(), job);
+    try {
+      jobExecutor.execute(() -> run(job, accessToken));
+    } catch (RuntimeException e) {
+      jobs.remove(job.getId());
+      throw e;
+    }
+    log.info("Queued ingestion job {} for drive {} item {}", job.getId(), driveId, itemId);
+    return job;
+  }
+
+  public Optional<IngestionJob> getJob(String jobId) {
+    return Optional.ofNullable(jobs.get(jobId));
+  }
+
+  public SseEmitter subscribe(IngestionJob job) {
+    SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+    if (job.isFinished()) {
+      sendFinal(job, emitter);
+      return emitter;
+    }
+    List<SseEmitter> emitters = subscribers.computeIfAbsent(job.getId(), id -> new CopyOnWriteArrayList<>());
+    emitters.add(emitter);
+    emitter.onCompletion(() -> emitters.remove(emitter));
+    emitter.onTimeout(() -> emitters.remove(emitter));
+    emitter.onError(error -> emitters.remove(emitter));
+    send(emitter, "progress", job.getProgress());
+    return emitter;
+  }
+
+  private void run(IngestionJob job, String accessToken) {
+    job.start();
+    try {
+      graphApiService.processTrainingData(accessToken, job.getDriveId(), job.getItemId(), job.getStats(),
+        new IngestionListener() {
+          @Override
+          public void onRootPage(List<GraphFile> items) {
+            job.addRootItems(items);
+          }
+
+          @Override
+          public void onFolderCompleted(GraphFile folder, int files) {
+            job.folderCompleted(files);
+          }
+
+          @Override
+          public boolean onFolderFailed(GraphFile folder, RuntimeException error) {
+            log.warn("Ingestion job {} failed on folder {}: {}", job.getId(), folder.getId(), error.getMessage());
+            job.folderFailed(folder.getId(), folder.getName(), error.getMessage());
+            return true;
+          }
+        });
+      job.complete();
+      log.info("Ingestion job {} completed: {}", job.getId(), job.getProgress());
+    } catch (Exception e) {
+      job.fail(e.getMessage());
+      log.error("Ingestion job {} failed: {}", job.getId(), e.getMessage());
+    } finally {
+      publish(job);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${ingestion.jobs.progress-interval-ms:1000}")
+  void publishProgress() {
+    subscribers.keySet().forEach(jobId -> {
+      IngestionJob job = jobs.get(jobId);
+      if (job != null) {
+        publish(job);
+      } else {
+        subscribers.remove(jobId);
+      }
+    });
+  }
+
+  @Scheduled(fixedDelay = 60_000)
+  void evictFinished() {
+    Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+    jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+  }
+
+  private void publish(IngestionJob job) {
+    List<SseEmitter> emitters = job.isFinished() ? subscribers.remove(job.getId()) : subscribers.get(job.getId());
+    if (emitters == null) {
+      return;
+    }
+    for (SseEmitter emitter : emitters) {
+      if (job.isFinished()) {
+        sendFinal(job, emitter);
+      } else {
+        send(emitter, "progress", job.getProgress());
+      }
+    }
+  }
+
+  private void sendFinal(IngestionJob job, SseEmitter emitter) {
+    Map<String, Object> progress = job.getProgress();
+    if (job.getFailure() != null) {
+      progress.put("failure", job.getFailure());
+    }
+    if (send(emitter, job.getState() == IngestionJob.State.COMPLETED ? "completed" : "failed", progress)) {
+      emitter.complete();
+    }
+  }
+
+  private boolean send(SseEmitter emitter, String name, Object data) {
+    try {
+      emitter.send(SseEmitter.event().name(name).data(data));
+      return true;
+    } catch (Exception e) {
+      // Client went away, the emitter callbacks drop it from the subscribers
+      emitter.completeWithError(e);
+      return false;
+    }
+  }
+}
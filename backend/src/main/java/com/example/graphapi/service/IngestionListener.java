@@ -0,0 +1,22 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.GraphFile;
+
+import java.util.List;
+
+// Progress callbacks of a training ingestion run, invoked from the ingestion worker threads
+public interface IngestionListener {
+
+  IngestionListener NONE = new IngestionListener() {};
+
+  default void onRootPage(List<GraphFile> items) {
+  }
+
+  default void onFolderCompleted(GraphFile folder, int files) {
+  }
+
+  // Return true to keep crawling the remaining folders instead of failing the run
+  default boolean onFolderFailed(GraphFile folder, RuntimeException error) {
+    return false;
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.graphapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end ingestion load test, enabled with the loadtest profile (which also turns on the
+ * Graph and categorizer stubs). Once the application is up it posts to its own children or sync
+ * endpoint, concurrency requests at a time, for warmup-runs plus runs rounds, then reports
+ * files/sec, request latency percentiles and heap usage of the measured rounds to the log and to
+ * report-file, and exits. Run with mvn -Ploadtest spring-boot:run.
+ */
+@Component
+@Profile("loadtest")
+public class IngestionLoadTestRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(IngestionLoadTestRunner.class);
+
+  @Autowired
+  private ApplicationContext applicationContext;
+
+  @Value("${server.port}")
+  private int port;
+
+  @Value("${loadtest.mode:children}")
+  private String mode;
+
+  @Value("${loadtest.drive-id:loadtest-drive}")
+  private String driveId;
+
+  @Value("${loadtest.item-id:root}")
+  private String itemId;
+
+  @Value("${loadtest.access-token:loadtest-token}")
+  private String accessToken;
+
+  @Value("${loadtest.warmup-runs:1}")
+  private int warmupRuns;
+
+  @Value("${loadtest.runs:3}")
+  private int runs;
+
+  @Value("${loadtest.concurrency:1}")
+  private int concurrency;
+
+  @Value("${loadtest.report-file:target/loadtest-report.json}")
+  private String reportFile;
+
+  @Value("${loadtest.exit-when-done:true}")
+  private boolean exitWhenDone;
+
+  private final RestTemplate restTemplate = new RestTemplate();
+  private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+  private record RequestResult(long nanos, long files, boolean failed) {}
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    Thread thread = new Thread(() -> {
+      int exitCode = 0;
+      try {
+        exitCode = run() ? 0 : 1;
+      } catch (Exception e) {
+        log.error("Load test failed: {}", e.getMessage(), e);
+        exitCode = 1;
+      }
+      if (exitWhenDone) {
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+      }
+    }, "ingestion-load-test");
+    thread.start();
+  }
+
+  // Returns false when any measured request failed
+  private boolean run() throws Exception {
+    String path = "children".equals(mode) ? "children" : "sync";
+    String url = "http://localhost:" + port + "/api/graph/drives/" + driveId + "/items/" + itemId + "/" + path;
+    ExecutorService callers = Executors.newFixedThreadPool(concurrency);
+    ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    AtomicLong peakHeap = new AtomicLong();
+    sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+      0, 50, TimeUnit.MILLISECONDS);
+
+    List<Map<String, Object>> rounds = new ArrayList<>();
+    List<Long> latencies = new ArrayList<>();
+    long measuredFiles = 0;
+    long measuredNanos = 0;
+    long measuredPeakHeap = 0;
+    int failures = 0;
+    try {
+      for (int round = 0; round < warmupRuns + runs; round++) {
+        boolean warmup = round < warmupRuns;
+        peakHeap.set(0);
+        long start = System.nanoTime();
+        List<Future<RequestResult>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+          futures.add(callers.submit(() -> post(url)));
+        }
+        List<RequestResult> results = new ArrayList<>();
+        for (Future<RequestResult> future : futures) {
+          results.add(future.get());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long files = results.stream().mapToLong(RequestResult::files).sum();
+        long failed = results.stream().filter(RequestResult::failed).count();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("round", round + 1);
+        summary.put("warmup", warmup);
+        summary.put("files", files);
+        summary.put("failedRequests", failed);
+        summary.put("elapsedMillis", elapsed / 1_000_000);
+        summary.put("filesPerSecond", perSecond(files, elapsed));
+        summary.put("peakHeapMb", peakHeap.get() >> 20);
+        rounds.add(summary);
+        log.info("Load test round {}{}: {} files in {} ms, {} files/s, {} failed requests, peak heap {} MB",
+          round + 1, warmup ? " (warmup)" : "", files, elapsed / 1_000_000, summary.get("filesPerSecond"), failed,
+          peakHeap.get() >> 20);
+
+        if (!warmup) {
+          measuredFiles += files;
+          measuredNanos += elapsed;
+          measuredPeakHeap = Math.max(measuredPeakHeap, peakHeap.get());
+          failures += failed;
+          results.forEach(result -> latencies.add(result.nanos()));
+        }
+      }
+    } finally {
+      callers.shutdownNow();
+      sampler.shutdownNow();
+    }
+
+    Collections.sort(latencies);
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("mode", mode);
+    report.put("concurrency", concurrency);
+    report.put("runs", runs);
+    report.put("files", measuredFiles);
+    report.put("filesPerSecond", perSecond(measuredFiles, measuredNanos));
+    report.put("p50Millis", percentile(latencies, 0.50));
+    report.put("p99Millis", percentile(latencies, 0.99));
+    report.put("failedRequests", failures);
+    report.put("peakHeapMb", measuredPeakHeap >> 20);
+    report.put("maxHeapMb", memory.getHeapMemoryUsage().getMax() >> 20);
+    report.put("rounds", rounds);
+
+    File file = new File(reportFile);
+    if (file.getParentFile() != null) {
+      file.getParentFile().mkdirs();
+    }
+    objectMapper.writeValue(file, report);
+    log.info("Load test: {} files/s, p50 {} ms, p99 {} ms, peak heap {} MB, {} failed requests; report in {}",
+      report.get("filesPerSecond"), report.get("p50Millis"), report.get("p99Millis"), measuredPeakHeap >> 20, failures,
+      file.getAbsolutePath());
+    return failures == 0;
+  }
+
+  private RequestResult post(String url) {
+    long start = System.nanoTime();
+    try {
+      JsonNode response = restTemplate.postForObject(url, Map.of("accessToken", accessToken), JsonNode.class);
+      // A full sync reports the ingestion, an incremental one the modules it upserted
+      JsonNode ingestion = "children".equals(mode) ? response.path("ingestion") : response.path("sync").path("ingestion");
+      long files = ingestion.isMissingNode() || ingestion.isNull()
+        ? response.path("sync").path("upsertedModules").asLong()
+        : ingestion.path("files").asLong();
+      return new RequestResult(System.nanoTime() - start, files, false);
+    } catch (Exception e) {
+      log.warn("Load test request failed: {}", e.getMessage());
+      return new RequestResult(System.nanoTime() - start, 0, true);
+    }
+  }
+
+  private static double perSecond(long count, long nanos) {
+    return nanos == 0 ? 0.0 : Math.round(count * 1e9 / nanos * 10) / 10.0;
+  }
+
+  // Nearest rank
+  private static long percentile(List<Long> sortedNanos, double quantile) {
+    if (sortedNanos.isEmpty()) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(quantile * sortedNanos.size());
+    return sortedNanos.get(Math.max(0, rank - 1)) / 1_000_000;
+  }
+}
@@ -0,0 +1,295 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.TrainingDetails;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * In-process categorizer used when categorizer.mode=local. Module names, folder paths and
+ * optional text are hashed into a bag-of-words matrix, one row per input, and scored for a
+ * whole batch at once: categories by the DL4J network at model-path if one is configured,
+ * otherwise by cosine similarity against centroids built from the labels file. Topics are
+ * always scored against the topic centroids of the chosen category.
+ */
+@Component
+public class LocalCategorizer {
+
+  private static final Logger log = LoggerFactory.getLogger(LocalCategorizer.class);
+
+  private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern CAMEL_CASE = Pattern.compile("(?<=\\p{Ll})(?=\\p{Lu})");
+  private static final Pattern LEADING_NUMBERING = Pattern.compile("^[\\s\\d._\\-)]+");
+  private static final Set<String> STOP_WORDS = Set.of(
+    "the", "and", "for", "with", "of", "to", "in", "on", "an", "a", "part", "module", "lesson", "session",
+    "video", "final", "copy", "mp4", "mov", "mkv", "pdf", "docx", "pptx", "xlsx");
+
+  @Value("${categorizer.mode:remote}")
+  private String mode;
+
+  @Value("${categorizer.local.labels:classpath:categorizer/labels.json}")
+  private String labelsLocation;
+
+  @Value("${categorizer.local.model-path:}")
+  private String modelPath;
+
+  @Value("${categorizer.local.features:4096}")
+  private int features;
+
+  @Value("${categorizer.local.batch-size:64}")
+  private int batchSize;
+
+  @Value("${categorizer.local.min-score:0.05}")
+  private double minScore;
+
+  @Value("${categorizer.local.fallback-category:Uncategorized}")
+  private String fallbackCategory;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private List<String> categories;
+  private List<List<String>> topics;
+  private INDArray categoryCentroids;
+  private List<INDArray> topicCentroids;
+  private MultiLayerNetwork model;
+
+  private final AtomicLong batches = new AtomicLong();
+  private final AtomicLong items = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxBatchNanos = new AtomicLong();
+  private volatile long lastBatchNanos;
+
+  // One module to classify; folderPath and text may be null
+  public record Input(String name, String folderPath, String text) {}
+
+  @PostConstruct
+  void start() {
+    if (isEnabled()) {
+      load();
+    }
+  }
+
+  public boolean isEnabled() {
+    return "local".equalsIgnoreCase(mode);
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  // Loads labels and model once; called at startup in local mode, lazily otherwise
+  public synchronized void load() {
+    if (categories != null) {
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      Resource resource = new DefaultResourceLoader().getResource(labelsLocation);
+      JsonNode labels;
+      try (InputStream in = resource.getInputStream()) {
+        labels = objectMapper.readTree(in);
+      }
+
+      List<String> categoryNames = new ArrayList<>();
+      List<List<String>> topicNames = new ArrayList<>();
+      List<INDArray> topicMatrices = new ArrayList<>();
+      INDArray categoryMatrix = Nd4j.zeros(DataType.FLOAT, labels.path("categories").size(), features);
+      int row = 0;
+      for (JsonNode category : labels.path("categories")) {
+        categoryNames.add(category.path("name").asText());
+        float[] categoryVector = new float[features];
+        addTokens(categoryVector, category.path("name").asText(), 1f);
+        category.path("keywords").forEach(keyword -> addTokens(categoryVector, keyword.asText(), 1f));
+
+        List<String> names = new ArrayList<>();
+        INDArray topicMatrix = Nd4j.zeros(DataType.FLOAT, Math.max(category.path("topics").size(), 1), features);
+        int topicRow = 0;
+        for (JsonNode topic : category.path("topics")) {
+          names.add(topic.path("name").asText());
+          float[] topicVector = new float[features];
+          addTokens(topicVector, topic.path("name").asText(), 1f);
+          topic.path("keywords").forEach(keyword -> {
+            addTokens(topicVector, keyword.asText(), 1f);
+            addTokens(categoryVector, keyword.asText(), 0.5f);
+          });
+          topicMatrix.putRow(topicRow++, Nd4j.create(normalize(topicVector)));
+        }
+        categoryMatrix.putRow(row++, Nd4j.create(normalize(categoryVector)));
+        topicNames.add(names);
+        topicMatrices.add(topicMatrix.transpose().dup());
+      }
+
+      if (modelPath != null && !modelPath.isBlank()) {
+        model = ModelSerializer.restoreMultiLayerNetwork(new File(modelPath), false);
+        long outputs = model.output(Nd4j.zeros(DataType.FLOAT, 1, features)).size(1);
+        if (outputs != categoryNames.size()) {
+          throw new IllegalStateException("Model has " + outputs + " outputs but the labels define "
+            + categoryNames.size() + " categories");
+        }
+      }
+      categoryCentroids = categoryMatrix.transpose().dup();
+      topicCentroids = topicMatrices;
+      topics = topicNames;
+      categories = categoryNames;
+      log.info("Local categorizer loaded {} categories from {}{} in {} ms", categoryNames.size(), labelsLocation,
+        model != null ? " with model " + modelPath : "", (System.nanoTime() - start) / 1_000_000);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to load local categorizer: " + e.getMessage(), e);
+    }
+  }
+
+  // Results line up with inputs; inputs are scored in batches of batch-size rows
+  public List<TrainingDetails> categorize(List<Input> inputs) {
+    load();
+    List<TrainingDetails> results = new ArrayList<>(inputs.size());
+    for (int from = 0; from < inputs.size(); from += batchSize) {
+      results.addAll(categorizeBatch(inputs.subList(from, Math.min(from + batchSize, inputs.size()))));
+    }
+    return results;
+  }
+
+  private List<TrainingDetails> categorizeBatch(List<Input> batch) {
+    long start = System.nanoTime();
+    float[] matrix = new float[batch.size() * features];
+    for (int i = 0; i < batch.size(); i++) {
+      Input input = batch.get(i);
+      float[] row = new float[features];
+      addTokens(row, stripExtension(input.name()), 1f);
+      addTokens(row, input.folderPath(), 0.7f);
+      addTokens(row, input.text(), 0.3f);
+      System.arraycopy(normalize(row), 0, matrix, i * features, features);
+    }
+    INDArray batchFeatures = Nd4j.create(matrix, new long[] {batch.size(), features}, DataType.FLOAT);
+    INDArray categoryScores = scoreCategories(batchFeatures);
+
+    List<TrainingDetails> results = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      INDArray scores = categoryScores.getRow(i);
+      int best = scores.argMax().getInt(0);
+      TrainingDetails details = new TrainingDetails();
+      details.setModuleTopic(moduleTopic(batch.get(i).name()));
+      if (scores.getDouble(best) < minScore) {
+        details.setCategory(fallbackCategory);
+      } else {
+        details.setCategory(categories.get(best));
+        List<String> topicNames = topics.get(best);
+        if (!topicNames.isEmpty()) {
+          INDArray topicScores = batchFeatures.getRow(i, true).mmul(topicCentroids.get(best));
+          int topic = topicScores.argMax(1).getInt(0);
+          details.setTrainingTopic(topicScores.getDouble(0, topic) < minScore ? categories.get(best) : topicNames.get(topic));
+        }
+      }
+      results.add(details);
+    }
+
+    long nanos = System.nanoTime() - start;
+    batches.incrementAndGet();
+    items.addAndGet(batch.size());
+    totalNanos.addAndGet(nanos);
+    maxBatchNanos.accumulateAndGet(nanos, Math::max);
+    lastBatchNanos = nanos;
+    return results;
+  }
+
+  private INDArray scoreCategories(INDArray batchFeatures) {
+    if (model == null) {
+      return batchFeatures.mmul(categoryCentroids);
+    }
+    // MultiLayerNetwork is not safe for concurrent inference
+    synchronized (this) {
+      return model.output(batchFeatures, false);
+    }
+  }
+
+  public Map<String, Object> getMetrics() {
+    long batchCount = batches.get();
+    Map<String, Object> metrics = new LinkedHashMap<>();
+    metrics.put("mode", isEnabled() ? "local" : "remote");
+    metrics.put("model", model != null ? modelPath : "centroids");
+    metrics.put("batches", batchCount);
+    metrics.put("items", items.get());
+    metrics.put("avgBatchMillis", batchCount == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / batchCount);
+    metrics.put("maxBatchMillis", maxBatchNanos.get() / 1_000_000.0);
+    metrics.put("lastBatchMillis", lastBatchNanos / 1_000_000.0);
+    metrics.put("avgItemMillis", items.get() == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / items.get());
+    return metrics;
+  }
+
+  // Signed feature hashing of unigrams and bigrams
+  private void addTokens(float[] vector, String text, float weight) {
+    if (text == null || text.isBlank()) {
+      return;
+    }
+    String previous = null;
+    for (String raw : TOKEN_SPLIT.split(CAMEL_CASE.matcher(text).replaceAll(" "))) {
+      String token = raw.toLowerCase(Locale.ROOT);
+      if (token.length() < 2 || STOP_WORDS.contains(token) || token.chars().allMatch(Character::isDigit)) {
+        continue;
+      }
+      add(vector, token, weight);
+      if (previous != null) {
+        add(vector, previous + "_" + token, weight * 0.5f);
+      }
+      previous = token;
+    }
+  }
+
+  private void add(float[] vector, String feature, float weight) {
+    int hash = feature.hashCode() * 0x9E3779B9;
+    int index = Math.floorMod(hash >>> 1, features);
+    vector[index] += (hash & 1) == 0 ? weight : -weight;
+  }
+
+  private static float[] normalize(float[] vector) {
+    double sum = 0;
+    for (float value : vector) {
+      sum += value * value;
+    }
+    if (sum > 0) {
+      float norm = (float) Math.sqrt(sum);
+      for (int i = 0; i < vector.length; i++) {
+        vector[i] /= norm;
+      }
+    }
+    return vector;
+  }
+
+  private static String stripExtension(String name) {
+    if (name == null) {
+      return null;
+    }
+    int dot = name.lastIndexOf('.');
+    return dot > 0 ? name.substring(0, dot) : name;
+  }
+
+  private static String moduleTopic(String name) {
+    String base = stripExtension(name);
+    if (base == null) {
+      return null;
+    }
+    String topic = LEADING_NUMBERING.matcher(base.replace('_', ' ')).replaceFirst("").trim();
+    return topic.isEmpty() ? base : topic;
+  }
+}
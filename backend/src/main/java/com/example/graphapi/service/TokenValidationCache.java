@@ -0,0 +1,125 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.util.JwtClaims;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers the /me payload of validated access tokens until the token's exp claim, so each
+ * token costs one Graph round trip per lifetime. Entries are keyed by a SHA-256 of the token.
+ * Concurrent first requests for the same token share a single lookup.
+ */
+@Component
+public class TokenValidationCache {
+
+  @Value("${token-cache.max-entries:10000}")
+  private int maxEntries;
+
+  @Value("${token-cache.expiry-skew-seconds:30}")
+  private long expirySkewSeconds;
+
+  @Value("${token-cache.opaque-token-ttl-seconds:300}")
+  private long opaqueTokenTtlSeconds;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public JsonNode getOrLoad(String accessToken, Function<String, JsonNode> loader) {
+    long now = System.currentTimeMillis();
+    String key = JwtClaims.hash(accessToken);
+
+    Entry entry = entries.get(key);
+    if (entry != null && entry.expiresAtMillis > now) {
+      hits.increment();
+    } else {
+      misses.increment();
+      long expiresAt = expiresAt(accessToken, now);
+      if (expiresAt <= now) {
+        return loader.apply(accessToken);
+      }
+      Entry candidate = new Entry(new CompletableFuture<>(), expiresAt);
+      entry = entries.compute(key, (k, current) ->
+        current != null && current.expiresAtMillis > now ? current : candidate);
+      if (entry == candidate) {
+        evictIfFull(now);
+        load(key, candidate, accessToken, loader);
+      }
+    }
+
+    try {
+      return entry.userInfo.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  public void invalidate(String accessToken) {
+    entries.remove(JwtClaims.hash(accessToken));
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  // Failed or empty lookups are not cached, the next request tries again
+  private void load(String key, Entry entry, String accessToken, Function<String, JsonNode> loader) {
+    try {
+      JsonNode userInfo = loader.apply(accessToken);
+      if (userInfo == null) {
+        entries.remove(key, entry);
+      }
+      entry.userInfo.complete(userInfo);
+    } catch (RuntimeException e) {
+      entries.remove(key, entry);
+      entry.userInfo.completeExceptionally(e);
+    }
+  }
+
+  private long expiresAt(String accessToken, long now) {
+    Long exp = JwtClaims.expiresAtMillis(JwtClaims.decode(accessToken));
+    if (exp == null) {
+      return now + opaqueTokenTtlSeconds * 1000;
+    }
+    return exp - expirySkewSeconds * 1000;
+  }
+
+  private void evictIfFull(long now) {
+    if (entries.size() <= maxEntries) {
+      return;
+    }
+    entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+    // Still full: drop the entries closest to expiry
+    int excess = entries.size() - maxEntries;
+    if (excess > 0) {
+      entries.entrySet().stream()
+        .sorted(Comparator.comparingLong(e -> e.getValue().expiresAtMillis))
+        .limit(excess)
+        .map(Map.Entry::getKey)
+        .toList()
+        .forEach(entries::remove);
+    }
+  }
+
+  private record Entry(CompletableFuture<JsonNode> userInfo, long expiresAtMillis) {}
+}
@@ -0,0 +1,120 @@
+package com.example.graphapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Bounded fan-out for training ingestion. Folders and files run on separate pools so a folder
+ * task can wait on its files without starving them; both pools use a bounded queue with
+ * caller-runs rejection, which throttles the submitting thread once the queue is full.
+ */
+@Component
+public class TrainingIngestionEngine {
+
+  private static final Logger log = LoggerFactory.getLogger(TrainingIngestionEngine.class);
+
+  @Value("${ingestion.folder-parallelism:4}")
+  private int folderParallelism;
+
+  @Value("${ingestion.file-parallelism:8}")
+  private int fileParallelism;
+
+  @Value("${ingestion.queue-capacity:64}")
+  private int queueCapacity;
+
+  private ThreadPoolExecutor folderExecutor;
+  private ThreadPoolExecutor fileExecutor;
+
+  @PostConstruct
+  void start() {
+    folderExecutor = newPool("ingest-folder-", folderParallelism);
+    fileExecutor = newPool("ingest-file-", fileParallelism);
+    log.info("Training ingestion engine started: folderParallelism={}, fileParallelism={}, queueCapacity={}",
+      folderParallelism, fileParallelism, queueCapacity);
+  }
+
+  @PreDestroy
+  void stop() {
+    folderExecutor.shutdownNow();
+    fileExecutor.shutdownNow();
+  }
+
+  // Folders are submitted while the stream is still producing them; returns the number of folders processed
+  public <T> int forEachFolder(Stream<T> folders, Consumer<T> task) {
+    List<Future<Void>> futures = new ArrayList<>();
+    try {
+      folders.forEach(folder -> futures.add(folderExecutor.submit(() -> {
+        task.accept(folder);
+        return null;
+      })));
+    } catch (RuntimeException e) {
+      cancelAll(futures);
+      throw e;
+    }
+    awaitAll(futures);
+    return futures.size();
+  }
+
+  // Results come back in the same order as the input
+  public <T, R> List<R> mapFiles(List<T> files, Function<T, R> task) {
+    List<Future<R>> futures = new ArrayList<>(files.size());
+    for (T file : files) {
+      futures.add(fileExecutor.submit(() -> task.apply(file)));
+    }
+    return awaitAll(futures);
+  }
+
+  private <R> List<R> awaitAll(List<? extends Future<R>> futures) {
+    List<R> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<R> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancelAll(futures);
+      throw new RuntimeException("Ingestion interrupted", e);
+    } catch (ExecutionException | CancellationException e) {
+      cancelAll(futures);
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new RuntimeException(cause.getMessage(), cause);
+    }
+  }
+
+  private void cancelAll(List<? extends Future<?>> futures) {
+    futures.forEach(future -> future.cancel(true));
+  }
+
+  private ThreadPoolExecutor newPool(String prefix, int threads) {
+    AtomicInteger counter = new AtomicInteger();
+    ThreadFactory threadFactory = runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+}
@@ -0,0 +1,174 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.GraphFile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Walks the folder tree below a training folder on a work-stealing pool. Each task lists up to
+ * batch-size sibling folders in one call and forks the subfolders it finds, so task nesting is
+ * bounded by max-depth rather than by the size of the tree. Items are visited once, and the
+ * number of files collected per training is capped by max-items.
+ */
+@Component
+public class TrainingTreeCrawler {
+
+  private static final Logger log = LoggerFactory.getLogger(TrainingTreeCrawler.class);
+
+  @Value("${ingestion.max-depth:4}")
+  private int maxDepth;
+
+  @Value("${ingestion.max-items-per-training:50000}")
+  private int maxItems;
+
+  @Value("${ingestion.crawl-parallelism:8}")
+  private int parallelism;
+
+  @Value("${graph.batch.max-requests:20}")
+  private int batchSize;
+
+  private ForkJoinPool crawlPool;
+
+  // folderPath is relative to the training folder ("" for its own files), depth 1 for its own files
+  public record CrawledFile(GraphFile file, String folderPath, int depth) {}
+
+  private record FolderNode(GraphFile folder, String path, int depth) {}
+
+  @PostConstruct
+  void start() {
+    crawlPool = new ForkJoinPool(parallelism);
+  }
+
+  @PreDestroy
+  void stop() {
+    crawlPool.shutdownNow();
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  // lister returns the children of each given folder keyed by folder id; rootChildren may be null if not listed yet
+  public List<CrawledFile> crawl(GraphFile root, List<GraphFile> rootChildren,
+                                 Function<List<GraphFile>, Map<String, List<GraphFile>>> lister) {
+    Crawl crawl = new Crawl(lister);
+    crawl.visited.add(root.getId());
+    FolderNode rootNode = new FolderNode(root, "", 0);
+    if (rootChildren != null) {
+      crawlPool.invoke(crawl.new ListTask(List.of(rootNode), Map.of(root.getId(), rootChildren)));
+    } else {
+      crawlPool.invoke(crawl.new ListTask(List.of(rootNode), null));
+    }
+
+    if (crawl.truncated.get()) {
+      log.warn("Training folder {} has more than {} items, the remaining items were skipped", root.getId(), maxItems);
+    }
+    if (crawl.tooDeep.get() > 0) {
+      log.info("Skipped {} folders below depth {} in training folder {}", crawl.tooDeep.get(), maxDepth, root.getId());
+    }
+    // Tasks finish in any order; a stable sort keeps each folder's listing order
+    List<CrawledFile> files = new ArrayList<>(crawl.files);
+    files.sort(Comparator.comparingInt(CrawledFile::depth).thenComparing(CrawledFile::folderPath));
+    return files;
+  }
+
+  private class Crawl {
+    private final Function<List<GraphFile>, Map<String, List<GraphFile>>> lister;
+    private final Set<String> visited = ConcurrentHashMap.newKeySet();
+    private final Queue<CrawledFile> files = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger itemCount = new AtomicInteger();
+    private final AtomicInteger tooDeep = new AtomicInteger();
+    private final AtomicBoolean truncated = new AtomicBoolean();
+
+    private Crawl(Function<List<GraphFile>, Map<String, List<GraphFile>>> lister) {
+      this.lister = lister;
+    }
+
+    private class ListTask extends RecursiveAction {
+      private final List<FolderNode> folders;
+      private final Map<String, List<GraphFile>> listed;
+
+      private ListTask(List<FolderNode> folders, Map<String, List<GraphFile>> listed) {
+        this.folders = folders;
+        this.listed = listed;
+      }
+
+      @Override
+      protected void compute() {
+        Map<String, List<GraphFile>> children = listed != null
+          ? listed
+          : list(folders.stream().map(FolderNode::folder).toList());
+
+        List<FolderNode> subfolders = new ArrayList<>();
+        for (FolderNode node : folders) {
+          for (GraphFile child : children.getOrDefault(node.folder().getId(), List.of())) {
+            // Shortcuts and items reported twice across pages are only taken once
+            if (truncated.get() || !visited.add(child.getId())) {
+              continue;
+            }
+            if (itemCount.incrementAndGet() > maxItems) {
+              truncated.set(true);
+              continue;
+            }
+            if (!child.getIsFolder()) {
+              files.add(new CrawledFile(child, node.path(), node.depth() + 1));
+            } else if (node.depth() + 1 < maxDepth) {
+              String path = node.path().isEmpty() ? child.getName() : node.path() + "/" + child.getName();
+              subfolders.add(new FolderNode(child, path, node.depth() + 1));
+            } else {
+              tooDeep.incrementAndGet();
+            }
+          }
+        }
+
+        List<ListTask> tasks = new ArrayList<>();
+        for (int from = 0; from < subfolders.size(); from += batchSize) {
+          tasks.add(new ListTask(subfolders.subList(from, Math.min(from + batchSize, subfolders.size())), null));
+        }
+        invokeAll(tasks);
+      }
+    }
+
+    // Listing blocks on HTTP, the pool adds a spare thread meanwhile so the other tasks keep running
+    private Map<String, List<GraphFile>> list(List<GraphFile> folders) {
+      AtomicReference<Map<String, List<GraphFile>>> result = new AtomicReference<>();
+      try {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+          @Override
+          public boolean block() {
+            result.set(lister.apply(folders));
+            return true;
+          }
+
+          @Override
+          public boolean isReleasable() {
+            return result.get() != null;
+          }
+        });
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Folder crawl interrupted", e);
+      }
+      return result.get();
+    }
+  }
+}
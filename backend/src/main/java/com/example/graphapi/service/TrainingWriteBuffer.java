@@ -0,0 +1,74 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.entity.TrainingMaster;
+import com.example.graphapi.model.IngestionStats;
+import com.example.graphapi.repository.TrainingUpsertRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects completed trainings from concurrent folder workers and writes them in batches of
+ * roughly batch-size modules, so an ingest costs a few round trips rather than one per folder.
+ * Each flush also drops modules that disappeared from the flushed trainings, all in one
+ * transaction.
+ */
+public class TrainingWriteBuffer implements AutoCloseable {
+
+  private final TrainingUpsertRepository upsertRepository;
+  private final IngestionStats stats;
+  private final int batchSize;
+
+  private List<TrainingMaster> masters = new ArrayList<>();
+  private List<TrainingDetails> details = new ArrayList<>();
+
+  public TrainingWriteBuffer(TrainingUpsertRepository upsertRepository, IngestionStats stats) {
+    this.upsertRepository = upsertRepository;
+    this.stats = stats;
+    this.batchSize = upsertRepository.getBatchSize();
+  }
+
+  public void add(TrainingMaster master, List<TrainingDetails> trainingDetails) {
+    List<TrainingMaster> mastersToWrite = null;
+    List<TrainingDetails> detailsToWrite = null;
+    synchronized (this) {
+      masters.add(master);
+      details.addAll(trainingDetails);
+      if (details.size() >= batchSize) {
+        mastersToWrite = masters;
+        detailsToWrite = details;
+        masters = new ArrayList<>();
+        details = new ArrayList<>();
+      }
+    }
+    if (mastersToWrite != null) {
+      write(mastersToWrite, detailsToWrite);
+    }
+  }
+
+  public void flush() {
+    List<TrainingMaster> mastersToWrite;
+    List<TrainingDetails> detailsToWrite;
+    synchronized (this) {
+      mastersToWrite = masters;
+      detailsToWrite = details;
+      masters = new ArrayList<>();
+      details = new ArrayList<>();
+    }
+    if (!mastersToWrite.isEmpty()) {
+      write(mastersToWrite, detailsToWrite);
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+  }
+
+  private void write(List<TrainingMaster> mastersToWrite, List<TrainingDetails> detailsToWrite) {
+    long start = System.nanoTime();
+    upsertRepository.writeTrainings(mastersToWrite, detailsToWrite);
+    stats.record("persist", mastersToWrite.size() + detailsToWrite.size(), System.nanoTime() - start);
+  }
+}
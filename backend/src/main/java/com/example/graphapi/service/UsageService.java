@@ -0,0 +1,354 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.UsageEvent;
+import com.example.graphapi.model.UsageEventRequest;
+import com.example.graphapi.repository.UsageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind capture of course launches, progress and completions. Events are queued in a
+ * bounded in-memory buffer and flushed every flush-interval-ms in batches of flush-batch-size:
+ * each batch is aggregated per course and minute, hour and day bucket before it reaches the
+ * database, so a flush costs a few batched statements however many events it carries. When
+ * the buffer is full new events are rejected rather than blocking the caller; a batch that
+ * still fails after flush-max-attempts flushes is dropped so it cannot stall the pipeline.
+ * Dashboards read the rollups only.
+ */
+@Service
+public class UsageService {
+
+  private static final Logger log = LoggerFactory.getLogger(UsageService.class);
+
+  private static final Set<String> EVENT_TYPES = Set.of("launch", "progress", "complete");
+  private static final Map<String, ChronoUnit> GRANULARITIES = new LinkedHashMap<>();
+  private static final String ALL_COURSES = "*";
+  // Length of the id columns the events and rollups are written to
+  private static final int MAX_ID_LENGTH = 255;
+
+  static {
+    GRANULARITIES.put("minute", ChronoUnit.MINUTES);
+    GRANULARITIES.put("hour", ChronoUnit.HOURS);
+    GRANULARITIES.put("day", ChronoUnit.DAYS);
+  }
+
+  @Autowired
+  private UsageRepository usageRepository;
+
+  @Value("${usage.buffer-capacity:100000}")
+  private int bufferCapacity;
+
+  @Value("${usage.flush-batch-size:5000}")
+  private int flushBatchSize;
+
+  @Value("${usage.flush-max-attempts:5}")
+  private int flushMaxAttempts;
+
+  @Value("${usage.minute-retention-hours:48}")
+  private long minuteRetentionHours;
+
+  @Value("${usage.hour-retention-days:90}")
+  private long hourRetentionDays;
+
+  @Value("${usage.event-retention-days:30}")
+  private long eventRetentionDays;
+
+  @Value("${usage.max-query-buckets:1500}")
+  private int maxQueryBuckets;
+
+  private ArrayBlockingQueue<UsageEvent> buffer;
+  private final ReentrantLock flushLock = new ReentrantLock();
+  // A batch whose flush failed, retried before anything new is drained
+  private volatile List<UsageEvent> retry = new ArrayList<>();
+  private int retryAttempts;
+
+  private final AtomicLong accepted = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong flushedEvents = new AtomicLong();
+  private final AtomicLong flushes = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private volatile long lastFlushMillis;
+
+  private record RollupKey(String granularity, Instant bucketStart, String trainingId) {}
+
+  private static final class Counters {
+    private long launches;
+    private long progressEvents;
+    private long completions;
+    private double watchSeconds;
+  }
+
+  @PostConstruct
+  void start() {
+    buffer = new ArrayBlockingQueue<>(bufferCapacity);
+  }
+
+  @PreDestroy
+  void stop() {
+    flush();
+  }
+
+  // Validates the whole request first; returns how many events did not fit in the buffer
+  public int record(List<UsageEventRequest> requests) {
+    Instant now = Instant.now();
+    List<UsageEvent> events = new ArrayList<>(requests.size());
+    for (UsageEventRequest request : requests) {
+      events.add(toEvent(request, now));
+    }
+    int dropped = 0;
+    for (UsageEvent event : events) {
+      if (!buffer.offer(event)) {
+        dropped++;
+      }
+    }
+    accepted.addAndGet(events.size() - dropped);
+    rejected.addAndGet(dropped);
+    return dropped;
+  }
+
+  @Scheduled(fixedDelayString = "${usage.flush-interval-ms:1000}")
+  public void flush() {
+    if (!flushLock.tryLock()) {
+      return;
+    }
+    try {
+      while (true) {
+        List<UsageEvent> batch = retry;
+        retry = new ArrayList<>();
+        if (batch.size() < flushBatchSize) {
+          buffer.drainTo(batch, flushBatchSize - batch.size());
+        }
+        if (batch.isEmpty()) {
+          return;
+        }
+        long start = System.nanoTime();
+        try {
+          write(batch);
+        } catch (RuntimeException e) {
+          failedFlushes.incrementAndGet();
+          if (++retryAttempts >= flushMaxAttempts) {
+            retryAttempts = 0;
+            droppedEvents.addAndGet(batch.size());
+            log.error("Dropping {} usage events after {} failed flushes: {}", batch.size(), flushMaxAttempts, e.getMessage());
+          } else {
+            retry = batch;
+            log.warn("Failed to flush {} usage events, retrying on the next flush: {}", batch.size(), e.getMessage());
+          }
+          return;
+        }
+        retryAttempts = 0;
+        flushes.incrementAndGet();
+        flushedEvents.addAndGet(batch.size());
+        lastFlushMillis = (System.nanoTime() - start) / 1_000_000;
+        if (batch.size() < flushBatchSize) {
+          return;
+        }
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${usage.cleanup-interval-ms:3600000}", initialDelayString = "${usage.cleanup-interval-ms:3600000}")
+  public void deleteExpired() {
+    Instant now = Instant.now();
+    try {
+      int minutes = usageRepository.deleteRollupsBefore("minute", now.minus(Duration.ofHours(minuteRetentionHours)));
+      int hours = usageRepository.deleteRollupsBefore("hour", now.minus(Duration.ofDays(hourRetentionDays)));
+      int events = usageRepository.deleteEventsBefore(now.minus(Duration.ofDays(eventRetentionDays)));
+      log.debug("Removed {} minute rows, {} hour rows and {} raw usage events past retention", minutes, hours, events);
+    } catch (RuntimeException e) {
+      log.warn("Failed to remove expired usage data: {}", e.getMessage());
+    }
+  }
+
+  // Rows are sorted so concurrent flushes from several nodes lock rollup rows in the same order
+  private void write(List<UsageEvent> batch) {
+    Map<RollupKey, Counters> rollups = new HashMap<>();
+    Set<UsageRepository.ActiveLearner> learners = new LinkedHashSet<>();
+    for (UsageEvent event : batch) {
+      for (Map.Entry<String, ChronoUnit> granularity : GRANULARITIES.entrySet()) {
+        Instant bucket = event.getOccurredAt().truncatedTo(granularity.getValue());
+        Counters counters = rollups.computeIfAbsent(
+          new RollupKey(granularity.getKey(), bucket, event.getTrainingId()), key -> new Counters());
+        switch (event.getEventType()) {
+          case "launch" -> counters.launches++;
+          case "complete" -> counters.completions++;
+          default -> counters.progressEvents++;
+        }
+        if (event.getWatchSeconds() != null) {
+          counters.watchSeconds += event.getWatchSeconds();
+        }
+        // Distinct learners per minute would cost a row per learner per minute, so only hours and days
+        if (event.getUserId() != null && granularity.getValue() != ChronoUnit.MINUTES) {
+          learners.add(new UsageRepository.ActiveLearner(granularity.getKey(), bucket, event.getTrainingId(), event.getUserId()));
+          learners.add(new UsageRepository.ActiveLearner(granularity.getKey(), bucket, ALL_COURSES, event.getUserId()));
+        }
+      }
+    }
+
+    List<UsageRepository.Rollup> rows = rollups.entrySet().stream()
+      .map(entry -> new UsageRepository.Rollup(entry.getKey().granularity(), entry.getKey().bucketStart(),
+        entry.getKey().trainingId(), entry.getValue().launches, entry.getValue().progressEvents,
+        entry.getValue().completions, entry.getValue().watchSeconds))
+      .sorted(Comparator.comparing(UsageRepository.Rollup::granularity)
+        .thenComparing(UsageRepository.Rollup::bucketStart)
+        .thenComparing(UsageRepository.Rollup::trainingId))
+      .toList();
+    List<UsageRepository.ActiveLearner> learnerRows = learners.stream()
+      .sorted(Comparator.comparing(UsageRepository.ActiveLearner::granularity)
+        .thenComparing(UsageRepository.ActiveLearner::bucketStart)
+        .thenComparing(UsageRepository.ActiveLearner::trainingId)
+        .thenComparing(UsageRepository.ActiveLearner::userId))
+      .toList();
+    usageRepository.write(batch, rows, learnerRows);
+  }
+
+  /**
+   * Launches, progress, completions, watch time and active learners per bucket in [from, to),
+   * for one course or all of them. Buckets without activity are returned as zeros; active
+   * learners are not tracked per minute.
+   */
+  public Map<String, Object> getDashboard(String granularity, String from, String to, String trainingId) {
+    String name = granularity == null ? "hour" : granularity.toLowerCase(Locale.ROOT);
+    ChronoUnit unit = GRANULARITIES.get(name);
+    if (unit == null) {
+      throw new IllegalArgumentException("granularity must be minute, hour or day");
+    }
+    Instant end = to != null ? parseInstant(to, "to") : Instant.now().truncatedTo(unit).plus(1, unit);
+    Instant start = from != null ? parseInstant(from, "from").truncatedTo(unit) : end.minus(24, unit);
+    long buckets = unit.between(start, end);
+    if (buckets <= 0 || buckets > maxQueryBuckets) {
+      throw new IllegalArgumentException("The range must cover between 1 and " + maxQueryBuckets + " " + name + " buckets");
+    }
+
+    Map<Instant, UsageRepository.BucketTotals> totals = new HashMap<>();
+    usageRepository.findBucketTotals(name, start, end, trainingId)
+      .forEach(row -> totals.put(row.bucketStart(), row));
+    Map<Instant, Long> learners = unit == ChronoUnit.MINUTES ? Map.of()
+      : usageRepository.countActiveLearners(name, start, end, trainingId != null ? trainingId : ALL_COURSES);
+
+    List<Map<String, Object>> series = new ArrayList<>();
+    long launches = 0;
+    long completions = 0;
+    double watchSeconds = 0;
+    for (Instant bucket = start; bucket.isBefore(end); bucket = bucket.plus(1, unit)) {
+      UsageRepository.BucketTotals row = totals.get(bucket);
+      Map<String, Object> point = new LinkedHashMap<>();
+      point.put("bucketStart", bucket.toString());
+      point.put("launches", row != null ? row.launches() : 0);
+      point.put("progressEvents", row != null ? row.progressEvents() : 0);
+      point.put("completions", row != null ? row.completions() : 0);
+      point.put("watchSeconds", row != null ? row.watchSeconds() : 0.0);
+      if (unit != ChronoUnit.MINUTES) {
+        point.put("activeLearners", learners.getOrDefault(bucket, 0L));
+      }
+      series.add(point);
+      if (row != null) {
+        launches += row.launches();
+        completions += row.completions();
+        watchSeconds += row.watchSeconds();
+      }
+    }
+
+    Map<String, Object> dashboard = new LinkedHashMap<>();
+    dashboard.put("granularity", name);
+    dashboard.put("from", start.toString());
+    dashboard.put("to", end.toString());
+    dashboard.put("trainingId", trainingId);
+    dashboard.put("launches", launches);
+    dashboard.put("completions", completions);
+    dashboard.put("watchSeconds", watchSeconds);
+    dashboard.put("series", series);
+    return dashboard;
+  }
+
+  // Most launched courses over the day rollups of [from, to), the last 7 days by default
+  public List<UsageRepository.CourseTotals> getTopCourses(String from, String to, int limit) {
+    Instant end = to != null ? parseInstant(to, "to") : Instant.now().truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+    Instant start = from != null ? parseInstant(from, "from").truncatedTo(ChronoUnit.DAYS) : end.minus(7, ChronoUnit.DAYS);
+    if (!start.isBefore(end)) {
+      throw new IllegalArgumentException("from must be before to");
+    }
+    return usageRepository.findTopCourses("day", start, end, Math.max(1, Math.min(limit, 100)));
+  }
+
+  public Map<String, Object> getStatus() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("buffered", buffer.size());
+    status.put("bufferCapacity", bufferCapacity);
+    status.put("pendingRetry", retry.size());
+    status.put("accepted", accepted.get());
+    status.put("rejected", rejected.get());
+    status.put("flushedEvents", flushedEvents.get());
+    status.put("flushes", flushes.get());
+    status.put("failedFlushes", failedFlushes.get());
+    status.put("droppedEvents", droppedEvents.get());
+    status.put("lastFlushMillis", lastFlushMillis);
+    return status;
+  }
+
+  private static UsageEvent toEvent(UsageEventRequest request, Instant now) {
+    String type = request.getType() == null ? null : request.getType().toLowerCase(Locale.ROOT);
+    if (type == null || !EVENT_TYPES.contains(type)) {
+      throw new IllegalArgumentException("type must be launch, progress or complete");
+    }
+    if (request.getTrainingId() == null || request.getTrainingId().isBlank()) {
+      throw new IllegalArgumentException("trainingId is required");
+    }
+    requireMaxLength(request.getTrainingId(), "trainingId");
+    requireMaxLength(request.getModuleId(), "moduleId");
+    requireMaxLength(request.getUserId(), "userId");
+    if (request.getWatchSeconds() != null
+      && (!Double.isFinite(request.getWatchSeconds()) || request.getWatchSeconds() < 0)) {
+      throw new IllegalArgumentException("watchSeconds must be a finite number that is not negative");
+    }
+    UsageEvent event = new UsageEvent();
+    event.setEventType(type);
+    event.setTrainingId(request.getTrainingId());
+    event.setTrainingDetailId(request.getModuleId());
+    event.setUserId(request.getUserId());
+    event.setWatchSeconds(request.getWatchSeconds());
+    event.setOccurredAt(request.getOccurredAt() != null ? parseInstant(request.getOccurredAt(), "occurredAt") : now);
+    event.setReceivedAt(now);
+    return event;
+  }
+
+  private static void requireMaxLength(String value, String field) {
+    if (value != null && value.length() > MAX_ID_LENGTH) {
+      throw new IllegalArgumentException(field + " must be at most " + MAX_ID_LENGTH + " characters");
+    }
+  }
+
+  private static Instant parseInstant(String value, String field) {
+    try {
+      return Instant.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(field + " must be an ISO-8601 instant such as 2024-05-01T10:15:30Z");
+    }
+  }
+}
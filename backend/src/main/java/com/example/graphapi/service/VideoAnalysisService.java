@@ -0,0 +1,356 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.VideoAnalysisResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Samples keyframes of videos with FFmpeg and reports thumbnails, scene changes and basic
+ * stats. Videos are decoded on a fixed pool of decoder workers. Before a video is decoded,
+ * its estimated decoder memory (from the source resolution) is taken from a global budget,
+ * so a handful of 4K files wait for each other instead of exhausting the heap. Frames are
+ * scaled down by FFmpeg and analysed in per-worker scratch buffers that are reused across
+ * frames and videos.
+ */
+@Service
+public class VideoAnalysisService {
+
+  private static final Logger log = LoggerFactory.getLogger(VideoAnalysisService.class);
+
+  private static final int HISTOGRAM_BINS = 16;
+
+  @Autowired
+  private GraphApiService graphApiService;
+
+  @Autowired
+  private TrainingTreeCrawler trainingTreeCrawler;
+
+  @Autowired
+  private VideoProbeService videoProbeService;
+
+  @Value("${video-analysis.workers:4}")
+  private int workers;
+
+  @Value("${video-analysis.queue-capacity:100}")
+  private int queueCapacity;
+
+  @Value("${video-analysis.memory-budget-mb:768}")
+  private int memoryBudgetMb;
+
+  @Value("${video-analysis.decoder-threads:2}")
+  private int decoderThreads;
+
+  @Value("${video-analysis.samples:24}")
+  private int samples;
+
+  @Value("${video-analysis.thumbnails:8}")
+  private int thumbnails;
+
+  @Value("${video-analysis.drive-thumbnails:3}")
+  private int driveThumbnails;
+
+  @Value("${video-analysis.thumbnail-width:320}")
+  private int thumbnailWidth;
+
+  @Value("${video-analysis.scene-threshold:0.35}")
+  private double sceneThreshold;
+
+  @Value("${video-analysis.max-videos:50}")
+  private int maxVideos;
+
+  @Value("${video-analysis.timeout-seconds:300}")
+  private long timeoutSeconds;
+
+  private ThreadPoolExecutor decoderPool;
+  private Semaphore memoryBudget;
+  private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+  @PostConstruct
+  void start() {
+    AtomicInteger counter = new AtomicInteger();
+    decoderPool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+        Thread thread = new Thread(runnable, "video-decoder-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }, new ThreadPoolExecutor.AbortPolicy());
+    memoryBudget = new Semaphore(memoryBudgetMb, true);
+  }
+
+  @PreDestroy
+  void stop() {
+    decoderPool.shutdownNow();
+  }
+
+  // The source is always the item's download URL as returned by Graph, never a URL the caller supplies
+  public VideoAnalysisResult analyzeVideo(String accessToken, String driveId, String itemId) {
+    GraphFile video = graphApiService.getDriveItem(accessToken, driveId, itemId);
+    if (video.getIsFolder() || video.getDownloadUrl() == null || !videoProbeService.isVideo(video)) {
+      throw new IllegalArgumentException("Item " + itemId + " is not a video file");
+    }
+    return await(submit(video.getDownloadUrl(), video.getName(), video.getId(), thumbnails));
+  }
+
+  // Videos anywhere below the folder, down to ingestion.max-depth; one result per video in listing order
+  public Map<String, Object> analyzeDriveVideos(String accessToken, String driveId, String itemId) {
+    long start = System.nanoTime();
+    GraphFile root = graphApiService.getDriveItem(accessToken, driveId, itemId);
+    List<GraphFile> videos = trainingTreeCrawler.crawl(root, null,
+        folders -> graphApiService.getChildrenOfFolders(accessToken, driveId, folders, null))
+      .stream()
+      .map(TrainingTreeCrawler.CrawledFile::file)
+      .filter(file -> file.getDownloadUrl() != null && videoProbeService.isVideo(file))
+      .toList();
+
+    List<GraphFile> selected = videos.size() > maxVideos ? videos.subList(0, maxVideos) : videos;
+    List<Future<VideoAnalysisResult>> futures = new ArrayList<>(selected.size());
+    for (GraphFile video : selected) {
+      futures.add(submit(video.getDownloadUrl(), video.getName(), video.getId(), driveThumbnails));
+    }
+    List<VideoAnalysisResult> results = new ArrayList<>(futures.size());
+    futures.forEach(future -> results.add(await(future)));
+
+    Map<String, Object> response = new LinkedHashMap<>();
+    response.put("totalVideosFound", videos.size());
+    response.put("totalVideosAnalyzed", results.size());
+    response.put("message", videos.size() > maxVideos
+      ? "Analyzed the first " + maxVideos + " of " + videos.size() + " videos"
+      : "Analyzed " + results.size() + " videos");
+    response.put("videoAnalysisResults", results);
+    response.put("processingMillis", (System.nanoTime() - start) / 1_000_000);
+    return response;
+  }
+
+  public Map<String, Object> getStatus() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("activeDecoders", decoderPool.getActiveCount());
+    status.put("queuedVideos", decoderPool.getQueue().size());
+    status.put("memoryBudgetMb", memoryBudgetMb);
+    status.put("memoryAvailableMb", memoryBudget.availablePermits());
+    return status;
+  }
+
+  private Future<VideoAnalysisResult> submit(String source, String fileName, String itemId, int maxThumbnails) {
+    return decoderPool.submit(() -> analyze(source, fileName, itemId, maxThumbnails));
+  }
+
+  private VideoAnalysisResult await(Future<VideoAnalysisResult> future) {
+    try {
+      return future.get(timeoutSeconds, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new RuntimeException("Video analysis interrupted", e);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      VideoAnalysisResult result = new VideoAnalysisResult();
+      result.setError("Video analysis timed out after " + timeoutSeconds + " s");
+      return result;
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Video analysis failed: " + e.getCause().getMessage(), e.getCause());
+    }
+  }
+
+  private VideoAnalysisResult analyze(String source, String fileName, String itemId, int maxThumbnails) {
+    long start = System.nanoTime();
+    VideoAnalysisResult result = new VideoAnalysisResult();
+    result.setFileName(fileName);
+    result.setItemId(itemId);
+    int permits = 0;
+    try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(source)) {
+      avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+      grabber.setOption("rw_timeout", String.valueOf(TimeUnit.SECONDS.toMicros(30)));
+      grabber.setVideoOption("threads", String.valueOf(decoderThreads));
+      // Only keyframes are decoded, everything in between is dropped by the decoder
+      grabber.setVideoOption("skip_frame", "nokey");
+      grabber.setPixelFormat(avutil.AV_PIX_FMT_BGR24);
+      grabber.start();
+
+      int sourceWidth = grabber.getImageWidth();
+      int sourceHeight = grabber.getImageHeight();
+      if (sourceWidth <= 0 || sourceHeight <= 0) {
+        throw new IllegalStateException("No video stream");
+      }
+      // Only counted once acquired, an acquire interrupted by a timeout must not release anything
+      int needed = Math.min(estimateMemoryMb(sourceWidth, sourceHeight), memoryBudgetMb);
+      memoryBudget.acquire(needed);
+      permits = needed;
+
+      // FFmpeg scales every decoded frame into the same small output buffer
+      grabber.setImageWidth(thumbnailWidth);
+      grabber.setImageHeight(Math.max(2, (int) Math.round((double) thumbnailWidth * sourceHeight / sourceWidth) & ~1));
+
+      result.setWidth(sourceWidth);
+      result.setHeight(sourceHeight);
+      result.setFrameRate(grabber.getFrameRate());
+      result.setVideoCodec(grabber.getVideoCodecName());
+      long lengthMicros = grabber.getLengthInTime();
+      result.setDuration(lengthMicros > 0 ? lengthMicros / 1_000_000.0 : null);
+
+      sample(grabber, lengthMicros, result, maxThumbnails);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.setError("Interrupted");
+    } catch (Exception e) {
+      log.warn("Could not analyze video {}: {}", fileName, e.getMessage());
+      result.setError(e.getMessage());
+    } finally {
+      memoryBudget.release(permits);
+    }
+    result.setProcessingMillis((System.nanoTime() - start) / 1_000_000);
+    return result;
+  }
+
+  private void sample(FFmpegFrameGrabber grabber, long lengthMicros, VideoAnalysisResult result, int maxThumbnails)
+    throws Exception {
+    Scratch buffers = scratch.get();
+    boolean first = true;
+    long lastTimestamp = -1;
+    double brightnessSum = 0;
+    int analyzed = 0;
+
+    for (int i = 0; i < samples && !Thread.currentThread().isInterrupted(); i++) {
+      if (lengthMicros > 0) {
+        grabber.setTimestamp(lengthMicros * (2L * i + 1) / (2L * samples), false);
+      }
+      Frame frame = grabber.grabKeyFrame();
+      if (frame == null || frame.image == null) {
+        if (lengthMicros > 0) {
+          continue;
+        }
+        break;
+      }
+      // Neighbouring samples often land on the same keyframe
+      if (frame.timestamp == lastTimestamp) {
+        continue;
+      }
+      lastTimestamp = frame.timestamp;
+
+      double brightness = histogram(frame, buffers.current);
+      double sceneScore = first ? 1.0 : distance(buffers.previous, buffers.current);
+      boolean sceneChange = first || sceneScore >= sceneThreshold;
+      double seconds = frame.timestamp / 1_000_000.0;
+
+      Map<String, Object> analysis = new LinkedHashMap<>();
+      analysis.put("frameNumber", grabber.getFrameNumber());
+      analysis.put("timestamp", frame.timestamp / 1000);
+      analysis.put("brightness", brightness);
+      analysis.put("sceneScore", sceneScore);
+      analysis.put("sceneChange", sceneChange);
+      result.getFrameAnalysis().add(analysis);
+
+      if (sceneChange) {
+        result.getSceneChanges().add(seconds);
+        if (result.getThumbnails().size() < maxThumbnails) {
+          Map<String, Object> thumbnail = new LinkedHashMap<>();
+          thumbnail.put("timestamp", seconds);
+          thumbnail.put("image", "data:image/jpeg;base64," + buffers.jpeg(frame));
+          result.getThumbnails().add(thumbnail);
+        }
+      }
+      buffers.swap();
+      brightnessSum += brightness;
+      analyzed++;
+      first = false;
+    }
+    result.setTotalFramesAnalyzed(analyzed);
+    result.setAverageBrightness(analyzed == 0 ? null : brightnessSum / analyzed);
+  }
+
+  // Decoded frames at source resolution: reference frames plus one per decoder thread, 4:2:0
+  private int estimateMemoryMb(int width, int height) {
+    long frameBytes = (long) width * height * 3 / 2;
+    long bytes = frameBytes * (6 + decoderThreads) + 4L * 1024 * 1024;
+    return (int) Math.max(1, (bytes + (1 << 20) - 1) >> 20);
+  }
+
+  // Normalized per-channel histogram of a BGR24 frame, every other pixel; returns mean luma in [0, 1]
+  private static double histogram(Frame frame, double[] bins) {
+    Arrays.fill(bins, 0);
+    ByteBuffer pixels = (ByteBuffer) frame.image[0];
+    int stride = frame.imageStride;
+    long lumaSum = 0;
+    int count = 0;
+    for (int y = 0; y < frame.imageHeight; y += 2) {
+      int row = y * stride;
+      for (int x = 0; x < frame.imageWidth; x += 2) {
+        int offset = row + x * 3;
+        int b = pixels.get(offset) & 0xff;
+        int g = pixels.get(offset + 1) & 0xff;
+        int r = pixels.get(offset + 2) & 0xff;
+        bins[b * HISTOGRAM_BINS / 256]++;
+        bins[HISTOGRAM_BINS + g * HISTOGRAM_BINS / 256]++;
+        bins[2 * HISTOGRAM_BINS + r * HISTOGRAM_BINS / 256]++;
+        lumaSum += (299L * r + 587L * g + 114L * b) / 1000;
+        count++;
+      }
+    }
+    if (count == 0) {
+      return 0;
+    }
+    for (int i = 0; i < bins.length; i++) {
+      bins[i] /= count;
+    }
+    return lumaSum / (255.0 * count);
+  }
+
+  // Half the L1 distance averaged over the three channels, 0 for identical and 1 for disjoint histograms
+  private static double distance(double[] previous, double[] current) {
+    double sum = 0;
+    for (int i = 0; i < current.length; i++) {
+      sum += Math.abs(previous[i] - current[i]);
+    }
+    return sum / 6;
+  }
+
+  // Per decoder thread; the converter keeps its BufferedImage between frames of the same size
+  private static class Scratch {
+    private double[] previous = new double[3 * HISTOGRAM_BINS];
+    private double[] current = new double[3 * HISTOGRAM_BINS];
+    private final Java2DFrameConverter converter = new Java2DFrameConverter();
+    private final ByteArrayOutputStream jpegBuffer = new ByteArrayOutputStream(32 * 1024);
+
+    private void swap() {
+      double[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+
+    private String jpeg(Frame frame) throws IOException {
+      BufferedImage image = converter.getBufferedImage(frame);
+      jpegBuffer.reset();
+      ImageIO.write(image, "jpg", jpegBuffer);
+      return Base64.getEncoder().encodeToString(jpegBuffer.toByteArray());
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.entity.TrainingDetails;
+import com.example.graphapi.model.GraphFile;
+import com.example.graphapi.model.IngestionStats;
+import com.example.graphapi.model.VideoMetadata;
+import com.example.graphapi.util.RangeSeekableInputStream;
+import org.bytedeco.ffmpeg.global.avutil;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads duration, resolution and codecs of a video with FFmpeg without downloading it. The
+ * container is opened over a RangeSeekableInputStream, so only the header and the index
+ * (e.g. an MP4 moov box at the end of the file) are transferred, never more than max-bytes.
+ */
+@Service
+public class VideoProbeService {
+
+  private static final Logger log = LoggerFactory.getLogger(VideoProbeService.class);
+
+  private final RestTemplate restTemplate;
+
+  @Autowired
+  private TrainingIngestionEngine ingestionEngine;
+
+  @Value("${video-probe.enabled:true}")
+  private boolean enabled;
+
+  @Value("${video-probe.override-categorizer:false}")
+  private boolean overrideCategorizer;
+
+  @Value("${video-probe.chunk-bytes:262144}")
+  private int chunkBytes;
+
+  @Value("${video-probe.max-bytes:8388608}")
+  private long maxBytes;
+
+  // Bytes FFmpeg may read from the start of the media data to fill in codec parameters
+  @Value("${video-probe.probe-size:1048576}")
+  private int probeSize;
+
+  @Value("${video-probe.extensions:mp4,m4v,mov,mkv,webm,avi,wmv,mpg,mpeg}")
+  private String extensions;
+
+  private Set<String> videoExtensions;
+  private volatile boolean nativeLoggingConfigured;
+
+  public VideoProbeService(@Qualifier("probeRestTemplate") RestTemplate restTemplate) {
+    this.restTemplate = restTemplate;
+  }
+
+  public boolean isVideo(GraphFile file) {
+    if (videoExtensions == null) {
+      videoExtensions = Arrays.stream(extensions.split(","))
+        .map(extension -> extension.trim().toLowerCase(Locale.ROOT))
+        .collect(Collectors.toSet());
+    }
+    String name = file.getName();
+    int dot = name == null ? -1 : name.lastIndexOf('.');
+    return dot >= 0 && videoExtensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+  }
+
+  // Fills the duration of video modules the categorizer left empty; details line up with files
+  public void fillDurations(List<GraphFile> files, List<TrainingDetails> details, IngestionStats stats) {
+    if (!enabled) {
+      return;
+    }
+    List<Integer> toProbe = new ArrayList<>();
+    for (int i = 0; i < files.size(); i++) {
+      TrainingDetails detail = details.get(i);
+      GraphFile file = files.get(i);
+      boolean missing = detail != null && (detail.getDuration() == null || detail.getDuration() <= 0);
+      if (detail != null && (missing || overrideCategorizer) && file.getDownloadUrl() != null && isVideo(file)) {
+        toProbe.add(i);
+      }
+    }
+    if (toProbe.isEmpty()) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    List<Optional<VideoMetadata>> probed = ingestionEngine.mapFiles(toProbe,
+      index -> probeQuietly(files.get(index)));
+    for (int i = 0; i < toProbe.size(); i++) {
+      int index = toProbe.get(i);
+      probed.get(i).ifPresent(metadata -> details.get(index).setDuration(metadata.getDurationSeconds()));
+    }
+    stats.record("probe", toProbe.size(), System.nanoTime() - start);
+  }
+
+  public Optional<VideoMetadata> probeQuietly(GraphFile file) {
+    try {
+      return Optional.of(probe(file.getDownloadUrl()));
+    } catch (Exception e) {
+      log.warn("Could not probe video {} ({}): {}", file.getName(), file.getId(), e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  // downloadUrl is pre-authenticated, no bearer token is sent
+  public VideoMetadata probe(String downloadUrl) throws IOException {
+    URI uri = URI.create(downloadUrl);
+    return probe(new RangeSeekableInputStream((offset, length) -> fetchRange(uri, offset, length), chunkBytes, maxBytes));
+  }
+
+  // Same code path over a local file, used to check probing against sample videos
+  public VideoMetadata probe(Path file) throws IOException {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "r");
+    try (randomAccessFile) {
+      return probe(new RangeSeekableInputStream((offset, length) -> {
+        byte[] bytes = new byte[(int) Math.max(0, Math.min(length, randomAccessFile.length() - offset))];
+        randomAccessFile.seek(offset);
+        randomAccessFile.readFully(bytes);
+        return new RangeSeekableInputStream.Chunk(offset, bytes, randomAccessFile.length());
+      }, chunkBytes, maxBytes));
+    }
+  }
+
+  private VideoMetadata probe(RangeSeekableInputStream input) throws IOException {
+    if (!nativeLoggingConfigured) {
+      // Loads the FFmpeg natives, so it is deferred until the first probe
+      avutil.av_log_set_level(avutil.AV_LOG_ERROR);
+      nativeLoggingConfigured = true;
+    }
+    long start = System.nanoTime();
+    // A maximum size enables FFmpeg's seek callback, which maps onto mark/reset/skip of the stream
+    try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(input, Integer.MAX_VALUE)) {
+      grabber.setCloseInputStream(true);
+      grabber.setOption("probesize", String.valueOf(probeSize));
+      grabber.setOption("analyzeduration", "1000000");
+      grabber.start();
+      if (grabber.getLengthInTime() <= 0) {
+        throw new IOException("Container does not declare a duration");
+      }
+      VideoMetadata metadata = new VideoMetadata();
+      metadata.setDurationSeconds(grabber.getLengthInTime() / 1_000_000.0);
+      metadata.setWidth(grabber.getImageWidth());
+      metadata.setHeight(grabber.getImageHeight());
+      metadata.setVideoCodec(grabber.getVideoCodecName());
+      metadata.setAudioCodec(grabber.getAudioCodecName());
+      metadata.setFormat(grabber.getFormat());
+      metadata.setFrameRate(grabber.getFrameRate());
+      metadata.setSizeBytes(input.getSize());
+      metadata.setBytesRead(input.getBytesFetched());
+      metadata.setProbeMillis((System.nanoTime() - start) / 1_000_000);
+      grabber.stop();
+      return metadata;
+    }
+  }
+
+  private RangeSeekableInputStream.Chunk fetchRange(URI uri, long offset, int length) throws IOException {
+    RangeSeekableInputStream.Chunk chunk = restTemplate.execute(uri, HttpMethod.GET,
+      request -> request.getHeaders().set(HttpHeaders.RANGE, "bytes=" + offset + "-" + (offset + length - 1)),
+      response -> {
+        String contentRange = response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE);
+        if (response.getStatusCode().value() == HttpStatus.PARTIAL_CONTENT.value() && contentRange != null) {
+          return new RangeSeekableInputStream.Chunk(offset, readAtMost(response.getBody(), length), totalSize(contentRange));
+        }
+        if (offset == 0) {
+          // Range ignored: keep the first chunk and drop the connection instead of reading the whole video
+          return new RangeSeekableInputStream.Chunk(0, readAtMost(response.getBody(), length), -1);
+        }
+        throw new IOException("Server does not support range requests: " + response.getStatusCode());
+      });
+    if (chunk == null) {
+      throw new IOException("Empty range response");
+    }
+    return chunk;
+  }
+
+  private static byte[] readAtMost(InputStream body, int length) throws IOException {
+    return body.readNBytes(length);
+  }
+
+  // Content-Range: bytes 0-1023/146515
+  private static long totalSize(String contentRange) {
+    int slash = contentRange.lastIndexOf('/');
+    String total = slash >= 0 ? contentRange.substring(slash + 1).trim() : "*";
+    return "*".equals(total) ? -1 : Long.parseLong(total);
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.graphapi.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+// Reads claims from an access token without verifying it; Graph remains the authority on validity
+public final class JwtClaims {
+
+  private static final ObjectMapper objectMapper = new ObjectMapper();
+
+  private JwtClaims() {}
+
+  // Returns null for opaque (non-JWT) tokens
+  public static JsonNode decode(String token) {
+    if (token == null) {
+      return null;
+    }
+    String[] parts = token.split("\\.");
+    if (parts.length < 2) {
+      return null;
+    }
+    try {
+      byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+      JsonNode claims = objectMapper.readTree(payload);
+      return claims != null && claims.isObject() ? claims : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  public static Long expiresAtMillis(JsonNode claims) {
+    if (claims == null || !claims.path("exp").canConvertToLong()) {
+      return null;
+    }
+    return claims.get("exp").asLong() * 1000;
+  }
+
+  public static String claim(JsonNode claims, String name) {
+    return claims == null ? null : claims.path(name).asText(null);
+  }
+
+  // Stable key for caches so raw tokens never sit in memory as map keys
+  public static String hash(String token) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
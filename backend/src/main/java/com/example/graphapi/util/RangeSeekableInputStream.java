@@ -0,0 +1,133 @@
+package com.example.graphapi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream over a remote resource that reads chunks on demand by byte range. skip() only
+ * moves the position and mark/reset may go backwards, which is what FFmpegFrameGrabber needs
+ * to seek in a container without reading everything in between. Fetching stops with an
+ * IOException once maxBytes have been transferred.
+ */
+public class RangeSeekableInputStream extends InputStream {
+
+  @FunctionalInterface
+  public interface RangeFetcher {
+    // Returns up to length bytes starting at offset together with the total size of the resource (-1 if unknown)
+    Chunk fetch(long offset, int length) throws IOException;
+  }
+
+  public record Chunk(long offset, byte[] bytes, long totalSize) {}
+
+  private final RangeFetcher fetcher;
+  private final int chunkSize;
+  private final long maxBytes;
+
+  private long position;
+  private long markPosition;
+  private long size = -1;
+  private long bytesFetched;
+  private int fetches;
+  private Chunk chunk;
+
+  public RangeSeekableInputStream(RangeFetcher fetcher, int chunkSize, long maxBytes) {
+    this.fetcher = fetcher;
+    this.chunkSize = chunkSize;
+    this.maxBytes = maxBytes;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] buffer, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (size >= 0 && position >= size) {
+      return -1;
+    }
+    if (!buffered(position)) {
+      fetch(position);
+      if (!buffered(position)) {
+        return -1;
+      }
+    }
+    int start = (int) (position - chunk.offset());
+    int count = Math.min(len, chunk.bytes().length - start);
+    System.arraycopy(chunk.bytes(), start, buffer, off, count);
+    position += count;
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    if (size < 0) {
+      // The size is only known after the first response
+      fetch(position);
+    }
+    long skipped = size < 0 ? n : Math.min(n, Math.max(size - position, 0));
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return chunk != null && buffered(position) ? (int) (chunk.offset() + chunk.bytes().length - position) : 0;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public synchronized void mark(int readLimit) {
+    markPosition = position;
+  }
+
+  @Override
+  public synchronized void reset() {
+    position = markPosition;
+  }
+
+  public long getBytesFetched() {
+    return bytesFetched;
+  }
+
+  public int getFetches() {
+    return fetches;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  private boolean buffered(long offset) {
+    return chunk != null && offset >= chunk.offset() && offset < chunk.offset() + chunk.bytes().length;
+  }
+
+  private void fetch(long offset) throws IOException {
+    int length = size >= 0 ? (int) Math.min(chunkSize, size - offset) : chunkSize;
+    if (length <= 0) {
+      return;
+    }
+    if (bytesFetched + length > maxBytes) {
+      throw new IOException("Range read budget of " + maxBytes + " bytes exceeded");
+    }
+    chunk = fetcher.fetch(offset, length);
+    fetches++;
+    bytesFetched += chunk.bytes().length;
+    if (chunk.totalSize() >= 0) {
+      size = chunk.totalSize();
+    } else if (chunk.bytes().length < length) {
+      size = offset + chunk.bytes().length;
+    }
+  }
+}
@@ -0,0 +1,26 @@
+-- Ingests before the upserts inserted a new row per run, so existing tables hold duplicate keys and
+-- the unique constraints the ON CONFLICT upserts rely on could not be created. Keep the newest row
+-- of every key, then add the constraints. Fresh databases have no tables yet; Hibernate creates
+-- them with the constraints after this has run.
+DO $$
+BEGIN
+  IF to_regclass('training_master') IS NOT NULL THEN
+    DELETE FROM training_master older
+      USING training_master newer
+      WHERE older.training_id = newer.training_id AND older.id < newer.id;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'training_master'::regclass AND conname = 'uk_training_master_training_id') THEN
+      ALTER TABLE training_master ADD CONSTRAINT uk_training_master_training_id UNIQUE (training_id);
+    END IF;
+  END IF;
+
+  IF to_regclass('training_details') IS NOT NULL THEN
+    DELETE FROM training_details older
+      USING training_details newer
+      WHERE older.training_detail_id = newer.training_detail_id AND older.id < newer.id;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'training_details'::regclass AND conname = 'uk_training_details_detail_id') THEN
+      ALTER TABLE training_details ADD CONSTRAINT uk_training_details_detail_id UNIQUE (training_detail_id);
+    END IF;
+  END IF;
+END $$;
@@ -0,0 +1,242 @@
+package com.example.graphapi.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs CategorizerResilience against a local HTTP stub whose status and latency are switched
+ * per test; the hedging test drives the action directly so the stalled primary is deterministic.
+ */
+class CategorizerResilienceTest {
+
+  private static final String FALLBACK = "Uncategorized";
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private RestTemplate restTemplate;
+  private String url;
+
+  private volatile int status = 200;
+  private volatile long delayMillis;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  private final List<CategorizerResilience> created = new ArrayList<>();
+
+  @BeforeEach
+  void startStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.createContext("/categorize", this::handle);
+    server.start();
+    url = "http://127.0.0.1:" + server.getAddress().getPort() + "/categorize";
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory();
+    requestFactory.setReadTimeout(Duration.ofSeconds(5));
+    restTemplate = new RestTemplate(requestFactory);
+  }
+
+  @AfterEach
+  void stopStub() {
+    created.forEach(CategorizerResilience::shutdown);
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    hits.incrementAndGet();
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try {
+      if (delayMillis > 0) {
+        Thread.sleep(delayMillis);
+      }
+      byte[] body = "Engineering".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(status, body.length);
+      exchange.getResponseBody().write(body);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      inFlight.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  private CategorizerResilience resilience(int maxConcurrent, long bulkheadWaitMillis, long openMillis,
+                                           boolean hedge) {
+    CategorizerResilience resilience = new CategorizerResilience(maxConcurrent, bulkheadWaitMillis, 10, 5, 0.5,
+      openMillis, 2, hedge, 5, 20);
+    created.add(resilience);
+    return resilience;
+  }
+
+  private String call(CategorizerResilience resilience, long timeoutMillis) {
+    return resilience.call(() -> restTemplate.getForObject(url, String.class), () -> FALLBACK, timeoutMillis, true);
+  }
+
+  @Test
+  void returnsResponseWhileHealthy() {
+    CategorizerResilience resilience = resilience(4, 100, 60_000, false);
+
+    assertEquals("Engineering", call(resilience, 2000));
+    assertEquals(CategorizerResilience.State.CLOSED, resilience.getState());
+  }
+
+  @Test
+  void opensAfterFailuresAndStopsCallingTheService() {
+    CategorizerResilience resilience = resilience(4, 100, 60_000, false);
+    status = 500;
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(FALLBACK, call(resilience, 2000));
+    }
+    assertEquals(CategorizerResilience.State.OPEN, resilience.getState());
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(FALLBACK, call(resilience, 2000));
+    }
+    assertEquals(5, hits.get());
+    assertEquals(20L, resilience.getMetrics().get("shortCircuited"));
+  }
+
+  @Test
+  void closesAfterSuccessfulTrialCalls() throws InterruptedException {
+    CategorizerResilience resilience = resilience(4, 100, 200, false);
+    status = 503;
+    for (int i = 0; i < 5; i++) {
+      call(resilience, 2000);
+    }
+    assertEquals(CategorizerResilience.State.OPEN, resilience.getState());
+
+    status = 200;
+    Thread.sleep(300);
+    assertEquals("Engineering", call(resilience, 2000));
+    assertEquals(CategorizerResilience.State.HALF_OPEN, resilience.getState());
+    assertEquals("Engineering", call(resilience, 2000));
+    assertEquals(CategorizerResilience.State.CLOSED, resilience.getState());
+  }
+
+  @Test
+  void reopensWhenATrialCallFails() throws InterruptedException {
+    CategorizerResilience resilience = resilience(4, 100, 200, false);
+    status = 500;
+    for (int i = 0; i < 5; i++) {
+      call(resilience, 2000);
+    }
+
+    Thread.sleep(300);
+    assertEquals(FALLBACK, call(resilience, 2000));
+    assertEquals(CategorizerResilience.State.OPEN, resilience.getState());
+  }
+
+  @Test
+  void clientErrorsDoNotOpenTheCircuit() {
+    CategorizerResilience resilience = resilience(4, 100, 60_000, false);
+    status = 400;
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(FALLBACK, call(resilience, 2000));
+    }
+    assertEquals(CategorizerResilience.State.CLOSED, resilience.getState());
+    assertEquals(10, hits.get());
+  }
+
+  @Test
+  void slowCallsFallBackAtTheDeadline() {
+    CategorizerResilience resilience = resilience(4, 100, 60_000, false);
+    delayMillis = 2000;
+
+    long start = System.nanoTime();
+    assertEquals(FALLBACK, call(resilience, 100));
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertTrue(elapsedMillis < 1000, "took " + elapsedMillis + " ms");
+    assertEquals(1L, resilience.getMetrics().get("timeouts"));
+  }
+
+  @Test
+  void bulkheadCapsConcurrentRequests() throws Exception {
+    CategorizerResilience resilience = resilience(2, 50, 60_000, false);
+    delayMillis = 300;
+
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(callers.submit(() -> call(resilience, 2000)));
+      }
+      int fallbacks = 0;
+      for (Future<String> result : results) {
+        if (FALLBACK.equals(result.get())) {
+          fallbacks++;
+        }
+      }
+
+      assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+      assertEquals(6, fallbacks);
+      assertEquals(6L, resilience.getMetrics().get("bulkheadRejected"));
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  void hedgedRequestAnswersWhenThePrimaryStalls() throws InterruptedException {
+    CategorizerResilience resilience = resilience(4, 100, 60_000, true);
+    for (int i = 0; i < 10; i++) {
+      call(resilience, 5000);
+    }
+
+    // A cold first call may already have been hedged during warm-up
+    long hedges = (Long) resilience.getMetrics().get("hedges");
+    long hedgeWins = (Long) resilience.getMetrics().get("hedgeWins");
+
+    // The first invocation is the primary and stalls until released, the second one is the hedge
+    CountDownLatch releasePrimary = new CountDownLatch(1);
+    CountDownLatch hedgeFired = new CountDownLatch(1);
+    AtomicInteger invocations = new AtomicInteger();
+    Supplier<String> action = () -> {
+      if (invocations.incrementAndGet() == 1) {
+        try {
+          releasePrimary.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return "Primary";
+      }
+      hedgeFired.countDown();
+      return "Hedge";
+    };
+
+    try {
+      assertEquals("Hedge", resilience.call(action, () -> FALLBACK, 30_000, true));
+      assertTrue(hedgeFired.await(0, TimeUnit.MILLISECONDS));
+      assertEquals(hedges + 1, resilience.getMetrics().get("hedges"));
+      assertEquals(hedgeWins + 1, resilience.getMetrics().get("hedgeWins"));
+    } finally {
+      releasePrimary.countDown();
+    }
+  }
+}
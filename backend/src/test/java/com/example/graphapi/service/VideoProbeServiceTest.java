@@ -0,0 +1,132 @@
+package com.example.graphapi.service;
+
+import com.example.graphapi.model.VideoMetadata;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Frame;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Probes a generated MP4 (index written after the media data) served by a local HTTP server
+ * that honours Range headers, and checks the duration comes back without the whole file being
+ * transferred.
+ */
+class VideoProbeServiceTest {
+
+  private static final double DURATION_SECONDS = 4.0;
+  private static final int FRAME_RATE = 25;
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+  @TempDir
+  static Path tempDir;
+
+  private static byte[] video;
+  private static HttpServer server;
+  private static final AtomicLong bytesServed = new AtomicLong();
+
+  @BeforeAll
+  static void startServer() throws IOException {
+    Path file = tempDir.resolve("sample.mp4");
+    writeVideo(file);
+    video = Files.readAllBytes(file);
+
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/sample.mp4", VideoProbeServiceTest::serveRange);
+    server.start();
+  }
+
+  @AfterAll
+  static void stopServer() {
+    server.stop(0);
+  }
+
+  // Noise frames keep the encoder from compressing the media data down to nothing
+  private static void writeVideo(Path file) throws IOException {
+    int width = 320;
+    int height = 240;
+    Random random = new Random(42);
+    try (FFmpegFrameRecorder recorder = new FFmpegFrameRecorder(file.toFile(), width, height, 0)) {
+      recorder.setFormat("mp4");
+      recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG4);
+      recorder.setFrameRate(FRAME_RATE);
+      recorder.setVideoBitrate(4_000_000);
+      recorder.start();
+      Frame frame = new Frame(width, height, Frame.DEPTH_UBYTE, 3);
+      ByteBuffer pixels = (ByteBuffer) frame.image[0];
+      byte[] row = new byte[pixels.capacity()];
+      for (int i = 0; i < DURATION_SECONDS * FRAME_RATE; i++) {
+        random.nextBytes(row);
+        pixels.clear();
+        pixels.put(row);
+        recorder.record(frame);
+      }
+      recorder.stop();
+    }
+  }
+
+  private static void serveRange(HttpExchange exchange) throws IOException {
+    Matcher range = RANGE.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Range")));
+    try (OutputStream body = exchange.getResponseBody()) {
+      if (!range.matches()) {
+        exchange.sendResponseHeaders(200, video.length);
+        body.write(video);
+        bytesServed.addAndGet(video.length);
+        return;
+      }
+      int from = Integer.parseInt(range.group(1));
+      int to = range.group(2).isEmpty() ? video.length - 1 : Math.min(Integer.parseInt(range.group(2)), video.length - 1);
+      int length = to - from + 1;
+      exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + video.length);
+      exchange.sendResponseHeaders(206, length);
+      body.write(video, from, length);
+      bytesServed.addAndGet(length);
+    }
+  }
+
+  private static VideoProbeService newService() {
+    VideoProbeService service = new VideoProbeService(new RestTemplate(new JdkClientHttpRequestFactory()));
+    ReflectionTestUtils.setField(service, "chunkBytes", 65536);
+    ReflectionTestUtils.setField(service, "maxBytes", 8L * 1024 * 1024);
+    ReflectionTestUtils.setField(service, "probeSize", 65536);
+    return service;
+  }
+
+  @Test
+  void probeReadsDurationWithRangeRequestsOnly() throws IOException {
+    bytesServed.set(0);
+    String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/sample.mp4";
+
+    VideoMetadata metadata = newService().probe(url);
+
+    assertEquals(DURATION_SECONDS, metadata.getDurationSeconds(), 0.1);
+    assertEquals(320, metadata.getWidth());
+    assertEquals(240, metadata.getHeight());
+    assertEquals(video.length, metadata.getSizeBytes());
+    assertTrue(metadata.getBytesRead() < video.length,
+      "read " + metadata.getBytesRead() + " of " + video.length + " bytes");
+    assertTrue(bytesServed.get() < video.length,
+      "served " + bytesServed.get() + " of " + video.length + " bytes");
+  }
+}
@@ -191,16 +191,30 @@ export class AppComponent implements OnInit, OnDestroy {
   categorizeDocuments(): void {
     if (this.accessToken && isPlatformBrowser(this.platformId)) {
       this.loading = true;
+      this.categorizedDocuments = null;
+      // Results are streamed, so categories fill in while the rest of the files are still being categorized
       this.authService.categorizeDriveItems(this.accessToken, this.driveId, this.itemId).subscribe({
-        next: (response) => {
-          console.log('Categorization response:', response);
-          this.categorizedDocuments = response;
-          this.showCategories = true;
-          this.loading = false;
+        next: (line) => {
+          if (line.type === 'started') {
+            this.categorizedDocuments = { totalFiles: line.totalFiles, categories: {} };
+            this.showCategories = true;
+          } else if (line.type === 'item' && !line.error) {
+            const category = line.category || 'Uncategorized';
+            const group = this.categorizedDocuments.categories[category] ??= { count: 0, files: [] };
+            group.count++;
+            group.files.push(line);
+          } else if (line.type === 'summary') {
+            console.log('Categorization summary:', line);
+            this.categorizedDocuments.processingMillis = line.processingMillis;
+            this.loading = false;
+          }
         },
         error: (error) => {
           console.error('Error categorizing documents:', error);
           this.loading = false;
+        },
+        complete: () => {
+          this.loading = false;
         }
       });
     }
@@ -232,10 +246,10 @@ export class AppComponent implements OnInit, OnDestroy {
     }
   }
 
-  analyzeSpecificVideo(videoUrl: string): void {
-    if (videoUrl && isPlatformBrowser(this.platformId)) {
+  analyzeSpecificVideo(itemId: string): void {
+    if (this.accessToken && itemId && isPlatformBrowser(this.platformId)) {
       this.analyzingVideo = true;
-      this.authService.analyzeVideo(videoUrl).subscribe({
+      this.authService.analyzeVideo(this.accessToken, this.driveId, itemId).subscribe({
         next: (response) => {
           console.log('Single video analysis response:', response);
           this.videoAnalysisResults = response;
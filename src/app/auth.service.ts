@@ -126,28 +126,60 @@ export class AuthService {
     }).then(response => response.json()));
   }
 
-  // Method to categorize drive items directly
+  // Method to categorize drive items directly; emits each NDJSON line (started, item, summary) as it arrives
   categorizeDriveItems(accessToken: string, driveId: string, itemId: string): Observable<any> {
-    const url = 'http://localhost:5000/api/categorization/categorize-drive-items';
+    const url = 'http://localhost:5000/api/categorization/categorize-drive-items/stream';
     const body = { 
       accessToken: accessToken,
       driveId: driveId,
       itemId: itemId
     };
-    
-    return from(fetch(url, {
-      method: 'POST',
-      headers: {
-        'Content-Type': 'application/json',
-      },
-      body: JSON.stringify(body)
-    }).then(response => response.json()));
+
+    return new Observable(observer => {
+      const controller = new AbortController();
+      fetch(url, {
+        method: 'POST',
+        headers: {
+          'Content-Type': 'application/json',
+        },
+        body: JSON.stringify(body),
+        signal: controller.signal
+      }).then(async response => {
+        if (!response.ok || !response.body) {
+          const error = await response.json().catch(() => ({}));
+          throw new Error(error.error || `Categorization failed with status ${response.status}`);
+        }
+        const reader = response.body.getReader();
+        const decoder = new TextDecoder();
+        let buffered = '';
+        while (true) {
+          const { done, value } = await reader.read();
+          buffered += decoder.decode(value, { stream: !done });
+          const lines = buffered.split('\n');
+          buffered = done ? '' : lines.pop() ?? '';
+          lines.filter(line => line.trim()).forEach(line => observer.next(JSON.parse(line)));
+          if (done) {
+            break;
+          }
+        }
+        observer.complete();
+      }).catch(error => {
+        if (!controller.signal.aborted) {
+          observer.error(error);
+        }
+      });
+      return () => controller.abort();
+    });
   }
 
-  // Method to analyze a single video
-  analyzeVideo(videoUrl: string): Observable<any> {
+  // Method to analyze a single drive video
+  analyzeVideo(accessToken: string, driveId: string, itemId: string): Observable<any> {
     const url = 'http://localhost:5000/api/video-analysis/analyze-video';
-    const body = { videoUrl: videoUrl };
+    const body = { 
+      accessToken: accessToken,
+      driveId: driveId,
+      itemId: itemId
+    };
     
     return from(fetch(url, {
       method: 'POST',